@@ -0,0 +1,170 @@
+package com.shawnlin.numberpicker;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays whole drag and fling gestures on the wheel frame by frame, the way
+ * NumberPicker#computeScroll feeds the wheel while an animation runs, and reports the
+ * per-gesture totals next to the timings.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GestureSimulationBenchmark {
+
+    private static final int ELEMENT_SIZE = 100;
+
+    private static final int GAP = ELEMENT_SIZE / 2;
+
+    /**
+     * The duration of a frame in milliseconds.
+     */
+    private static final int FRAME_MILLIS = 16;
+
+    /**
+     * The number of frames of a drag gesture.
+     */
+    private static final int DRAG_FRAMES = 30;
+
+    /**
+     * The distance moved per frame of a drag gesture.
+     */
+    private static final int DRAG_STEP = ELEMENT_SIZE / 3;
+
+    /**
+     * The velocity, in pixels per second, below which a fling stops.
+     */
+    private static final float MIN_FLING_VELOCITY = 50;
+
+    /**
+     * The deceleration, in pixels per second squared, of a fling.
+     */
+    private static final float FLING_DECELERATION = 8000;
+
+    /**
+     * The totals of the gestures. JMH reports them as the time per counted event, so the
+     * score of a gesture divided by the score of a counter gives the count per gesture.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class GestureCounters {
+        public long frames;
+        public long selectorSteps;
+        public long indicesAdded;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            frames = 0;
+            selectorSteps = 0;
+            indicesAdded = 0;
+        }
+    }
+
+    @Param({"true", "false"})
+    public boolean wrap;
+
+    @Param({"60", "10000"})
+    public int range;
+
+    @Param({"4000", "20000"})
+    public int flingVelocity;
+
+    private WheelModel mWheel;
+
+    private final GestureCounters mCounters = new GestureCounters();
+
+    private int mDirection = 1;
+
+    @Setup
+    public void setUp() {
+        mWheel = new WheelModel(0, range - 1, 5, new WheelModel.Callback() {
+            @Override
+            public void onSelectorIndexAdded(int selectorIndex) {
+                mCounters.indicesAdded++;
+            }
+
+            @Override
+            public void onSelectorStep(int middleSelectorIndex) {
+                mCounters.selectorSteps++;
+                // mirrors NumberPicker#setValueInternal
+                mWheel.setValue(mWheel.normalizeValue(middleSelectorIndex));
+                mWheel.initializeSelectorIndices();
+            }
+        });
+        mWheel.setWrapSelectorWheelPreferred(wrap);
+        mWheel.setValue(range / 2);
+        mWheel.initializeSelectorIndices();
+        mWheel.setGeometry(ELEMENT_SIZE, 0);
+    }
+
+    @Benchmark
+    public int drag(GestureCounters counters) {
+        for (int frame = 0; frame < DRAG_FRAMES; frame++) {
+            step(mDirection * DRAG_STEP);
+        }
+        settle();
+        mDirection = -mDirection;
+        report(counters);
+        return mWheel.getValue();
+    }
+
+    @Benchmark
+    public int fling(GestureCounters counters) {
+        float velocity = flingVelocity;
+        float remainder = 0;
+        while (velocity > MIN_FLING_VELOCITY) {
+            final float distance = velocity * FRAME_MILLIS / 1000f + remainder;
+            final int delta = (int) distance;
+            remainder = distance - delta;
+            if (!step(mDirection * delta)) {
+                break;
+            }
+            velocity -= FLING_DECELERATION * FRAME_MILLIS / 1000f;
+        }
+        settle();
+        mDirection = -mDirection;
+        report(counters);
+        return mWheel.getValue();
+    }
+
+    /**
+     * Scrolls the wheel as one frame would.
+     *
+     * @return False if the wheel has hit an end.
+     */
+    private boolean step(int delta) {
+        mCounters.frames++;
+        return mWheel.scrollBy(delta, GAP, true);
+    }
+
+    /**
+     * Adjusts the wheel so that an element is in the middle, as the adjust scroller does.
+     */
+    private void settle() {
+        final int delta = mWheel.getAdjustmentDelta();
+        if (delta != 0) {
+            step(delta);
+        }
+    }
+
+    /**
+     * Moves the totals of the gesture to the counters reported by JMH.
+     */
+    private void report(GestureCounters counters) {
+        counters.frames += mCounters.frames;
+        counters.selectorSteps += mCounters.selectorSteps;
+        counters.indicesAdded += mCounters.indicesAdded;
+        mCounters.reset();
+    }
+}
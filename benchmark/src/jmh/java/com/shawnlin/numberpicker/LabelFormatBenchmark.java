@@ -0,0 +1,83 @@
+package com.shawnlin.numberpicker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the ways a label can be produced for a value of the wheel, using the same
+ * {@link LabelFormat} code as the library.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LabelFormatBenchmark {
+
+    private static final String[] MONTHS = {
+            "January", "February", "March", "April", "May", "June",
+            "July", "August", "September", "October", "November", "December"
+    };
+
+    @Param({"7", "42", "12345"})
+    public int value;
+
+    private LabelFormat.TwoDigits mTwoDigits;
+
+    private NumberFormat mNumberFormat;
+
+    private String mTypedMonth;
+
+    @Setup
+    public void setUp() {
+        Locale.setDefault(Locale.US);
+        mTwoDigits = new LabelFormat.TwoDigits();
+        mNumberFormat = NumberFormat.getInstance();
+        mTypedMonth = MONTHS[value % MONTHS.length].substring(0, 3).toLowerCase();
+    }
+
+    /**
+     * The default formatter, NumberPicker.TwoDigitFormatter.
+     */
+    @Benchmark
+    public String twoDigitFormatter() {
+        return mTwoDigits.format(value);
+    }
+
+    /**
+     * The formatter created from the np_formatter attribute.
+     */
+    @Benchmark
+    public String stringFormatter() {
+        return LabelFormat.formatPattern("%02d", value);
+    }
+
+    /**
+     * The label of a picker without a formatter.
+     */
+    @Benchmark
+    public String numberFormat() {
+        return mNumberFormat.format(value);
+    }
+
+    @Benchmark
+    public String valueOf() {
+        return String.valueOf(value);
+    }
+
+    /**
+     * NumberPicker#getSelectedPos for typed text matched against displayed values.
+     */
+    @Benchmark
+    public int displayedValuePrefixLookup() {
+        return LabelFormat.parseTypedValue(MONTHS, 1, mTypedMonth);
+    }
+}
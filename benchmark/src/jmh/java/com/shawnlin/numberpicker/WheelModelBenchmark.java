@@ -0,0 +1,76 @@
+package com.shawnlin.numberpicker;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the selector-index stepping and wrapping done for every scrolled element.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WheelModelBenchmark {
+
+    private static final int ELEMENT_SIZE = 100;
+
+    private static final int GAP = ELEMENT_SIZE / 2;
+
+    @Param({"true", "false"})
+    public boolean wrap;
+
+    private WheelModel mWheel;
+
+    private int mDirection = 1;
+
+    private int mIndex;
+
+    @Setup
+    public void setUp() {
+        mWheel = new WheelModel(0, 59, 5, new WheelModel.Callback() {
+            @Override
+            public void onSelectorIndexAdded(int selectorIndex) {
+            }
+
+            @Override
+            public void onSelectorStep(int middleSelectorIndex) {
+                // mirrors NumberPicker#setValueInternal
+                mWheel.setValue(mWheel.normalizeValue(middleSelectorIndex));
+                mWheel.initializeSelectorIndices();
+            }
+        });
+        mWheel.setWrapSelectorWheelPreferred(wrap);
+        mWheel.setValue(30);
+        mWheel.initializeSelectorIndices();
+        mWheel.setGeometry(ELEMENT_SIZE, 0);
+    }
+
+    @Benchmark
+    public int stepOneElement() {
+        if (!mWheel.scrollBy(mDirection * ELEMENT_SIZE, GAP, true)) {
+            mDirection = -mDirection;
+        }
+        return mWheel.getValue();
+    }
+
+    @Benchmark
+    public int flingFiftyElements() {
+        if (!mWheel.scrollBy(mDirection * 50 * ELEMENT_SIZE, GAP, true)) {
+            mDirection = -mDirection;
+        }
+        return mWheel.getValue();
+    }
+
+    @Benchmark
+    public int wrapSelectorIndex() {
+        mIndex = (mIndex + 7) % 200;
+        return mWheel.getWrappedSelectorIndex(mIndex - 70);
+    }
+}
@@ -0,0 +1,172 @@
+package com.shawnlin.numberpicker;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.util.LruCache;
+
+/**
+ * A cache of labels rendered once into alpha bitmaps, so that drawing a label is a blit
+ * instead of rasterizing its glyphs. The bitmaps only hold the coverage of the text, the
+ * color is applied when they are drawn. Bitmaps are evicted in least recently used order
+ * once they take more than the given number of bytes.
+ */
+final class LabelBitmapCache {
+
+    /**
+     * The style of a label affecting its coverage, the color is not part of it.
+     */
+    private static final class Key {
+        String mText;
+        float mTextSize;
+        Typeface mTypeface;
+        int mFlags;
+
+        void set(String text, Paint paint) {
+            mText = text;
+            mTextSize = paint.getTextSize();
+            mTypeface = paint.getTypeface();
+            mFlags = paint.getFlags();
+        }
+
+        Key copy() {
+            final Key key = new Key();
+            key.mText = mText;
+            key.mTextSize = mTextSize;
+            key.mTypeface = mTypeface;
+            key.mFlags = mFlags;
+            return key;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return mTextSize == key.mTextSize && mFlags == key.mFlags
+                    && mTypeface == key.mTypeface && mText.equals(key.mText);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mText.hashCode();
+            result = 31 * result + Float.floatToIntBits(mTextSize);
+            result = 31 * result + (mTypeface != null ? mTypeface.hashCode() : 0);
+            result = 31 * result + mFlags;
+            return result;
+        }
+    }
+
+    /**
+     * A rendered label, the offset of its bitmap from the origin of the text and the
+     * advance of the text.
+     */
+    private static final class Entry {
+        final Bitmap mBitmap;
+        final int mLeft;
+        final int mTop;
+        final float mAdvance;
+
+        Entry(Bitmap bitmap, int left, int top, float advance) {
+            mBitmap = bitmap;
+            mLeft = left;
+            mTop = top;
+            mAdvance = advance;
+        }
+    }
+
+    private final LruCache<Key, Entry> mEntries;
+
+    /**
+     * The key used for lookups, so that hits do not allocate.
+     */
+    private final Key mLookupKey = new Key();
+
+    private final Paint mRenderPaint = new Paint();
+
+    /**
+     * The paint drawing the cached labels, filtering them when the canvas scales them, as
+     * the curved wheel and the magnifier do.
+     */
+    private final Paint mBlitPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+
+    private final Paint.FontMetricsInt mFontMetrics = new Paint.FontMetricsInt();
+
+    private final Rect mTextBounds = new Rect();
+
+    LabelBitmapCache(int maxBytes) {
+        mEntries = new LruCache<Key, Entry>(maxBytes) {
+            @Override
+            protected int sizeOf(Key key, Entry entry) {
+                return entry.mBitmap.getRowBytes() * entry.mBitmap.getHeight();
+            }
+        };
+    }
+
+    int maxSize() {
+        return mEntries.maxSize();
+    }
+
+    void evictAll() {
+        mEntries.evictAll();
+    }
+
+    /**
+     * Draws the given single line <code>text</code> as {@link Canvas#drawText(String, float,
+     * float, Paint)} would, rendering it first if it is not cached yet.
+     *
+     * @return False if the label cannot be cached and has to be drawn as text.
+     */
+    boolean drawText(Canvas canvas, String text, float x, float y, Paint paint) {
+        mLookupKey.set(text, paint);
+        Entry entry = mEntries.get(mLookupKey);
+        if (entry == null) {
+            entry = render(text, paint);
+            if (entry == null) {
+                return false;
+            }
+            mEntries.put(mLookupKey.copy(), entry);
+        }
+        float left = x + entry.mLeft;
+        switch (paint.getTextAlign()) {
+            case CENTER:
+                left -= entry.mAdvance / 2f;
+                break;
+            case RIGHT:
+                left -= entry.mAdvance;
+                break;
+            default:
+                break;
+        }
+        mBlitPaint.setColor(paint.getColor());
+        canvas.drawBitmap(entry.mBitmap, Math.round(left), Math.round(y + entry.mTop),
+                mBlitPaint);
+        return true;
+    }
+
+    private Entry render(String text, Paint paint) {
+        mRenderPaint.set(paint);
+        mRenderPaint.setTextAlign(Paint.Align.LEFT);
+        mRenderPaint.setColor(0xFF000000);
+        mRenderPaint.getFontMetricsInt(mFontMetrics);
+        mRenderPaint.getTextBounds(text, 0, text.length(), mTextBounds);
+        // the glyphs may overhang the advance, e.g. in italic typefaces
+        final float advance = mRenderPaint.measureText(text);
+        final int left = Math.min(0, mTextBounds.left);
+        final int right = Math.max((int) Math.ceil(advance), mTextBounds.right);
+        final int width = right - left;
+        final int height = mFontMetrics.bottom - mFontMetrics.top;
+        if (width <= 0 || height <= 0 || width * height > mEntries.maxSize()) {
+            return null;
+        }
+        final Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ALPHA_8);
+        new Canvas(bitmap).drawText(text, -left, -mFontMetrics.top, mRenderPaint);
+        return new Entry(bitmap, left, mFontMetrics.top, advance);
+    }
+}
@@ -0,0 +1,103 @@
+package com.shawnlin.numberpicker;
+
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * The formatting of the labels of the wheel and the parsing of the typed text. It knows
+ * nothing about Android, so that it can be benchmarked on a plain JVM.
+ */
+final class LabelFormat {
+
+    private LabelFormat() {
+    }
+
+    /**
+     * Formats numbers as two-digit strings like "01". Keeping a static formatter etc. is
+     * the most efficient way to do this; it avoids creating temporary objects on every
+     * call to format(). Since an instance may be shared, formatting is synchronized so
+     * that pickers bound on different threads do not corrupt the shared builder.
+     */
+    static final class TwoDigits {
+        final StringBuilder mBuilder = new StringBuilder();
+
+        char mZeroDigit;
+        java.util.Formatter mFmt;
+
+        final Object[] mArgs = new Object[1];
+
+        TwoDigits() {
+            final Locale locale = Locale.getDefault();
+            init(locale);
+        }
+
+        private void init(Locale locale) {
+            mFmt = createFormatter(locale);
+            mZeroDigit = getZeroDigit(locale);
+        }
+
+        synchronized String format(int value) {
+            final Locale currentLocale = Locale.getDefault();
+            if (mZeroDigit != getZeroDigit(currentLocale)) {
+                init(currentLocale);
+            }
+            mArgs[0] = value;
+            mBuilder.delete(0, mBuilder.length());
+            mFmt.format("%02d", mArgs);
+            return mFmt.toString();
+        }
+
+        private static char getZeroDigit(Locale locale) {
+            // return LocaleData.get(locale).zeroDigit;
+            return new DecimalFormatSymbols(locale).getZeroDigit();
+        }
+
+        private java.util.Formatter createFormatter(Locale locale) {
+            return new java.util.Formatter(mBuilder, locale);
+        }
+    }
+
+    /**
+     * Formats a value with a pattern as set by the np_formatter attribute.
+     *
+     * @param pattern The pattern, as taken by {@link String#format(Locale, String, Object...)}.
+     * @param value   The value to format.
+     * @return The formatted value in the default locale.
+     */
+    static String formatPattern(String pattern, int value) {
+        return String.format(Locale.getDefault(), pattern, value);
+    }
+
+    /**
+     * Parses the text typed into the input.
+     *
+     * @param displayedValues The displayed values, or <code>null</code> if the numbers are
+     *                        displayed.
+     * @param minValue        The min value of the picker.
+     * @param value           The typed text.
+     * @return The value of the first displayed value starting with the text, ignoring the
+     * case, else the text parsed as a number, else <code>minValue</code>.
+     */
+    static int parseTypedValue(String[] displayedValues, int minValue, String value) {
+        if (displayedValues != null) {
+            // Don't force the user to type in jan when ja will do
+            final String prefix = value.toLowerCase();
+            for (int i = 0; i < displayedValues.length; i++) {
+                if (displayedValues[i].toLowerCase().startsWith(prefix)) {
+                    return minValue + i;
+                }
+            }
+        }
+
+        /*
+         * The user might have typed in a number into the month field i.e.
+         * 10 instead of OCT so support that too.
+         */
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            // Ignore as if it's not a number we don't care
+        }
+        return minValue;
+    }
+}
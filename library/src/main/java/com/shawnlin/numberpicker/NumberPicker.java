@@ -2,13 +2,24 @@ package com.shawnlin.numberpicker;
 
 import android.content.Context;
 import android.content.res.Configuration;
+import android.content.res.Resources;
 import android.content.res.TypedArray;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Paint;
+import android.graphics.Picture;
+import android.graphics.Rect;
 import android.graphics.Typeface;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
 import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.Trace;
 import android.text.InputType;
 import android.text.Spanned;
 import android.text.TextUtils;
@@ -16,6 +27,7 @@ import android.text.method.NumberKeyListener;
 import android.util.AttributeSet;
 import android.util.DisplayMetrics;
 import android.util.SparseArray;
+import android.util.SparseIntArray;
 import android.util.TypedValue;
 import android.view.KeyEvent;
 import android.view.LayoutInflater;
@@ -24,7 +36,11 @@ import android.view.MotionEvent;
 import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
+import android.view.ViewParent;
 import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityManager;
+import android.view.accessibility.AccessibilityNodeInfo;
+import android.view.accessibility.AccessibilityNodeProvider;
 import android.view.animation.DecelerateInterpolator;
 import android.view.inputmethod.EditorInfo;
 import android.widget.EditText;
@@ -35,19 +51,31 @@ import androidx.annotation.ColorInt;
 import androidx.annotation.ColorRes;
 import androidx.annotation.DimenRes;
 import androidx.annotation.IntDef;
+import androidx.annotation.RequiresApi;
 import androidx.annotation.StringRes;
 import androidx.core.content.ContextCompat;
+import androidx.core.os.TraceCompat;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
-import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
-import java.util.Locale;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import static java.lang.annotation.RetentionPolicy.SOURCE;
 
 /**
  * A widget that enables the user to select a number from a predefined range.
+ * <p>
+ * A picker may be constructed, including inflated from XML, on a background thread, as
+ * <code>AsyncLayoutInflater</code> does. Beyond what the constructor of any View does, the
+ * constructor only shares the parsed styles, the typefaces and the two-digit formatter with
+ * other pickers, and these are synchronized. Once the picker is handed over to the main
+ * thread, all its other methods must be called on the main thread.
+ * </p>
  */
 public class NumberPicker extends LinearLayout {
 
@@ -175,47 +203,88 @@ public class NumberPicker extends LinearLayout {
     private static final float DEFAULT_LINE_SPACING_MULTIPLIER = 1f;
 
     /**
-     * Use a custom NumberPicker formatting callback to use two-digit minutes
-     * strings like "01". Keeping a static formatter etc. is the most efficient
-     * way to do this; it avoids creating temporary objects on every call to
-     * format().
+     * The max number of cached string representations of selector indices, the cache
+     * is cleared when it grows beyond.
      */
-    private static class TwoDigitFormatter implements Formatter {
-        final StringBuilder mBuilder = new StringBuilder();
+    private static final int SELECTOR_VALUE_CACHE_SIZE = 256;
 
-        char mZeroDigit;
-        java.util.Formatter mFmt;
+    /**
+     * The text alignments of {@link Paint}, {@link Paint.Align#values()} returns a copy.
+     */
+    private static final Paint.Align[] PAINT_ALIGNS = Paint.Align.values();
 
-        final Object[] mArgs = new Object[1];
+    /**
+     * How far ahead, in milliseconds of scrolling at the current velocity, labels are
+     * prefetched.
+     */
+    private static final int PREFETCH_LOOKAHEAD_MILLIS = 250;
 
-        TwoDigitFormatter() {
-            final Locale locale = Locale.getDefault();
-            init(locale);
-        }
+    /**
+     * The min and max number of labels prefetched ahead of the wheel.
+     */
+    private static final int MIN_PREFETCH_COUNT = 2;
+    private static final int MAX_PREFETCH_COUNT = 32;
 
-        private void init(Locale locale) {
-            mFmt = createFormatter(locale);
-            mZeroDigit = getZeroDigit(locale);
-        }
+    /**
+     * The time a prefetch may take before yielding the idle main thread.
+     */
+    private static final long PREFETCH_BUDGET_NANOS = 4000000L;
 
-        public String format(int value) {
-            final Locale currentLocale = Locale.getDefault();
-            if (mZeroDigit != getZeroDigit(currentLocale)) {
-                init(currentLocale);
-            }
-            mArgs[0] = value;
-            mBuilder.delete(0, mBuilder.length());
-            mFmt.format("%02d", mArgs);
-            return mFmt.toString();
-        }
+    /**
+     * The scale and the alpha of the items at the edge of the curved wheel.
+     */
+    private static final float MIN_CURVE_SCALE = 0.8f;
+    private static final float MIN_CURVE_ALPHA = 0.3f;
 
-        private static char getZeroDigit(Locale locale) {
-            // return LocaleData.get(locale).zeroDigit;
-            return new DecimalFormatSymbols(locale).getZeroDigit();
-        }
+    /**
+     * The number of text sizes and colors the magnifier goes through.
+     */
+    private static final int MAGNIFIER_STEPS = 16;
+
+    /**
+     * The fling velocity, in elements per second, above which an accelerated scroll steps
+     * over ten times more values, again for every multiple of it.
+     */
+    private static final int ACCELERATED_SCROLL_VELOCITY = 20;
+
+    /**
+     * The largest step size of an accelerated scroll.
+     */
+    private static final int ACCELERATED_SCROLL_MAX_STEP = 1000;
+
+    /**
+     * The refresh rate assumed when the display is not known.
+     */
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+
+    /**
+     * The names of the system trace sections and counters.
+     */
+    private static final String TRACE_DRAW = "NumberPicker#onDraw";
+    private static final String TRACE_SCROLL_BY = "NumberPicker#scrollBy";
+    private static final String TRACE_SET_VALUE = "NumberPicker#setValueInternal";
+    private static final String TRACE_COMPUTE_MAX_WIDTH = "NumberPicker#tryComputeMaxWidth";
+    private static final String TRACE_INITIALIZE_SELECTOR_WHEEL =
+            "NumberPicker#initializeSelectorWheel";
+    private static final String TRACE_FORMAT = "NumberPicker.Formatter#format";
+    private static final String TRACE_SCROLL_OFFSET = "NumberPicker scroll offset";
+    private static final String TRACE_SCROLL_STATE = "NumberPicker scroll state";
 
-        private java.util.Formatter createFormatter(Locale locale) {
-            return new java.util.Formatter(mBuilder, locale);
+    /**
+     * The minimum time between two checks whether tracing is enabled before API 29, where
+     * the check is a reflective call.
+     */
+    private static final long TRACE_SAMPLE_INTERVAL_NANOS = 1000000000L;
+
+    /**
+     * Use a custom NumberPicker formatting callback to use two-digit minutes
+     * strings like "01", see {@link LabelFormat.TwoDigits}.
+     */
+    private static class TwoDigitFormatter implements Formatter {
+        final LabelFormat.TwoDigits mTwoDigits = new LabelFormat.TwoDigits();
+
+        public String format(int value) {
+            return mTwoDigits.format(value);
         }
     }
 
@@ -225,6 +294,18 @@ public class NumberPicker extends LinearLayout {
         return sTwoDigitFormatter;
     }
 
+    /**
+     * Cache of the typefaces resolved from family names, shared by all instances and
+     * guarded by itself.
+     */
+    private static final HashMap<String, Typeface> sTypefaceCache = new HashMap<>();
+
+    /**
+     * Cache of the parsed styles per theme, keyed by the style resource, guarded by itself.
+     */
+    private static final WeakHashMap<Resources.Theme, SparseArray<ParsedStyle>> sParsedStyleCache =
+            new WeakHashMap<>();
+
     /**
      * The text for showing the current value.
      */
@@ -340,21 +421,6 @@ public class NumberPicker extends LinearLayout {
      */
     private String[] mDisplayedValues;
 
-    /**
-     * Lower value of the range of numbers allowed for the NumberPicker
-     */
-    private int mMinValue = DEFAULT_MIN_VALUE;
-
-    /**
-     * Upper value of the range of numbers allowed for the NumberPicker
-     */
-    private int mMaxValue = DEFAULT_MAX_VALUE;
-
-    /**
-     * Current value of this NumberPicker
-     */
-    private int mValue;
-
     /**
      * Listener to be notified upon current value click.
      */
@@ -396,14 +462,20 @@ public class NumberPicker extends LinearLayout {
     private int mRealWheelItemCount = DEFAULT_WHEEL_ITEM_COUNT;
 
     /**
-     * The index of the middle selector item.
+     * The range, value, indices and offsets of the selector wheel.
      */
-    private int mWheelMiddleItemIndex = mWheelItemCount / 2;
+    private final WheelModel mWheel = new WheelModel(DEFAULT_MIN_VALUE, DEFAULT_MAX_VALUE,
+            DEFAULT_WHEEL_ITEM_COUNT, new WheelModel.Callback() {
+                @Override
+                public void onSelectorIndexAdded(int selectorIndex) {
+                    ensureCachedScrollSelectorValue(selectorIndex);
+                }
 
-    /**
-     * The selector indices whose value are show by the selector.
-     */
-    private int[] mSelectorIndices = new int[mWheelItemCount];
+                @Override
+                public void onSelectorStep(int middleSelectorIndex) {
+                    setValueInternal(middleSelectorIndex, true);
+                }
+            });
 
     /**
      * The {@link Paint} for drawing the selector.
@@ -411,19 +483,9 @@ public class NumberPicker extends LinearLayout {
     private final Paint mSelectorWheelPaint;
 
     /**
-     * The size of a selector element (text + gap).
-     */
-    private int mSelectorElementSize;
-
-    /**
-     * The initial offset of the scroll selector.
-     */
-    private int mInitialScrollOffset = Integer.MIN_VALUE;
-
-    /**
-     * The current offset of the scroll selector.
+     * The font metrics of the selector paint, reused while drawing.
      */
-    private int mCurrentScrollOffset;
+    private final Paint.FontMetrics mFontMetrics = new Paint.FontMetrics();
 
     /**
      * The {@link Scroller} responsible for flinging the selector.
@@ -435,6 +497,11 @@ public class NumberPicker extends LinearLayout {
      */
     private final Scroller mAdjustScroller;
 
+    /**
+     * Flag whether the picker may be seen, i.e. it and its window are visible.
+     */
+    private boolean mShownOnScreen = true;
+
     /**
      * The previous X coordinate while scrolling the selector.
      */
@@ -496,19 +563,30 @@ public class NumberPicker extends LinearLayout {
     private int mMaximumFlingVelocity;
 
     /**
-     * Flag whether the selector should wrap around.
+     * Divider for showing item to be selected while scrolling
      */
-    private boolean mWrapSelectorWheel;
+    private Drawable mDividerDrawable;
 
     /**
-     * User choice on whether the selector wheel should be wrapped.
+     * Flag whether the divider is the solid color {@link #mDividerColor}, which is drawn
+     * as a rectangle with {@link #mDividerPaint} instead of through the drawable.
      */
-    private boolean mWrapSelectorWheelPreferred = true;
+    private boolean mDividerSolid;
 
     /**
-     * Divider for showing item to be selected while scrolling
+     * The paint of a solid divider.
      */
-    private Drawable mDividerDrawable;
+    private final Paint mDividerPaint = new Paint();
+
+    /**
+     * The bounds of the dividers, the first {@link #mDividerCount} are drawn.
+     */
+    private final Rect[] mDividerBounds = { new Rect(), new Rect() };
+
+    /**
+     * The number of dividers drawn.
+     */
+    private int mDividerCount;
 
     /**
      * The color of the divider.
@@ -540,6 +618,11 @@ public class NumberPicker extends LinearLayout {
      */
     private int mBottomDividerBottom;
 
+    /**
+     * The area in which the selector items are drawn, invalidated when they move.
+     */
+    private final Rect mWheelBounds = new Rect();
+
     /**
      * The left of the top divider.
      */
@@ -570,6 +653,59 @@ public class NumberPicker extends LinearLayout {
      */
     private boolean mHideWheelUntilFocused;
 
+    /**
+     * Flag whether the selector wheel is drawn as a cylinder.
+     */
+    private boolean mWheelCurved;
+
+    /**
+     * The position of the middle item at rest, along the scroll axis.
+     */
+    private float mSelectorCenter;
+
+    /**
+     * Flag whether the text size and color change gradually with the distance from the
+     * middle item.
+     */
+    private boolean mMagnifierEnabled;
+
+    /**
+     * Flag whether fast flings step over several values per element.
+     */
+    private boolean mAcceleratedScrollEnabled;
+
+    /**
+     * The paints of the magnifier, from the selected style to the style of the other
+     * items, null until built or when the styles have changed.
+     */
+    private Paint[] mMagnifierPaints;
+
+    /**
+     * The colors and the vertical center offsets of the magnifier paints.
+     */
+    private int[] mMagnifierColors;
+    private float[] mMagnifierCenterYs;
+
+    /**
+     * The magnifier paint of an item by its distance from the middle item.
+     */
+    private int[] mMagnifierSteps;
+
+    /**
+     * The element size and wheel item count the curve transforms are computed for.
+     */
+    private int mCurveElementSize;
+    private int mCurveItemCount;
+
+    /**
+     * The projected distance from the center, the scale, the compression along the scroll
+     * axis and the alpha of an item, by its distance from the center on the flat wheel.
+     */
+    private float[] mCurveOffsets;
+    private float[] mCurveScales;
+    private float[] mCurveCompressions;
+    private int[] mCurveAlphas;
+
     /**
      * The orientation of this widget.
      */
@@ -590,6 +726,16 @@ public class NumberPicker extends LinearLayout {
      */
     private float mFadingEdgeStrength = DEFAULT_FADING_EDGE_STRENGTH;
 
+    /**
+     * The length of the fading edges.
+     */
+    private int mFadingEdgeLength;
+
+    /**
+     * The alpha of an item by its distance from the nearest edge, null if not fading.
+     */
+    private int[] mFadingEdgeAlphas;
+
     /**
      * Flag whether the scroller should enabled.
      */
@@ -610,6 +756,52 @@ public class NumberPicker extends LinearLayout {
      */
     private boolean mAccessibilityDescriptionEnabled = true;
 
+    /**
+     * The value last set as the accessibility description.
+     */
+    private int mAccessibilityDescriptionValue = Integer.MIN_VALUE;
+
+    /**
+     * Provider of the virtual accessibility views, created on the first request.
+     */
+    private AccessibilityNodeProviderImpl mAccessibilityNodeProvider;
+
+    /**
+     * Flag whether the selector geometry must be recomputed on the next layout.
+     */
+    private boolean mSelectorGeometryDirty = true;
+
+    /**
+     * The recorded drawing of the idle wheel, replayed on software canvases as long as
+     * nothing has changed.
+     */
+    private final Picture mIdlePicture = new Picture();
+
+    /**
+     * Flag whether {@link #mIdlePicture} holds a drawing that may be replayed.
+     */
+    private boolean mIdlePictureValid;
+
+    /**
+     * The state of the wheel when {@link #mIdlePicture} was recorded.
+     */
+    private int mIdlePictureOffset;
+    private int mIdlePictureSelectorIndex;
+    private int mIdlePictureWidth;
+    private int mIdlePictureHeight;
+    private boolean mIdlePictureShowWheel;
+    private boolean mIdlePictureShowInput;
+
+    /**
+     * The width the selector geometry was computed for.
+     */
+    private int mSelectorGeometryWidth;
+
+    /**
+     * The height the selector geometry was computed for.
+     */
+    private int mSelectorGeometryHeight;
+
     /**
      * The context of this widget.
      */
@@ -625,6 +817,121 @@ public class NumberPicker extends LinearLayout {
      */
     private ViewConfiguration mViewConfiguration;
 
+    /**
+     * The tracker to be notified around the per-frame work.
+     */
+    private AllocationTracker mAllocationTracker;
+
+    /**
+     * Listener to be notified with the metrics of every gesture.
+     */
+    private OnMetricsListener mOnMetricsListener;
+
+    /**
+     * The metrics of the current gesture, reused for all gestures.
+     */
+    private final GestureMetrics mGestureMetrics = new GestureMetrics();
+
+    /**
+     * Flag whether a gesture is being measured.
+     */
+    private boolean mMeasuringGesture;
+
+    /**
+     * The time of the last frame drawn while measuring a gesture.
+     */
+    private long mLastFrameNanos;
+
+    /**
+     * The time available to draw a frame on the display of this widget.
+     */
+    private long mFrameBudgetNanos = (long) (1e9 / DEFAULT_REFRESH_RATE);
+
+    /**
+     * Flag whether system tracing is enabled, see {@link #refreshTraceEnabled(boolean)}.
+     */
+    private boolean mTraceEnabled;
+
+    /**
+     * The time tracing was last checked before API 29, zero if never.
+     */
+    private long mTraceSampledNanos;
+
+    /**
+     * The time a call of the formatter may take, zero if not checked.
+     */
+    private long mFormatBudgetNanos;
+
+    /**
+     * Listener to be notified when the formatter exceeds its budget.
+     */
+    private OnSlowFormatListener mOnSlowFormatListener;
+
+    /**
+     * Flag whether the formatter has exceeded its budget.
+     */
+    private boolean mFormatterSlow;
+
+    /**
+     * The executor formatting the labels once the formatter has exceeded its budget, null
+     * to keep formatting them inline.
+     */
+    private Executor mSlowFormatExecutor;
+
+    /**
+     * The label drawn while the real one is formatted by {@link #mSlowFormatExecutor}.
+     */
+    private String mSlowFormatPlaceholder = "";
+
+    /**
+     * The executor calling the asynchronous formatter, null if none is set.
+     */
+    private Executor mAsyncFormatExecutor;
+
+    /**
+     * The label drawn while the real one is formatted by {@link #mAsyncFormatExecutor}.
+     */
+    private String mAsyncFormatPlaceholder = "";
+
+    /**
+     * Flag whether the formatter is only ever called on {@link #mAsyncFormatExecutor}.
+     */
+    private boolean mFormatAsync;
+
+    /**
+     * The labels known before the cached ones were last invalidated, drawn instead of the
+     * placeholder while the labels are formatted again.
+     */
+    private final SparseArray<String> mStaleLabels = new SparseArray<>();
+
+    /**
+     * The selector indices whose labels are being formatted off-thread,
+     * mapped to the label generation they were requested in.
+     */
+    private final SparseIntArray mPendingLabels = new SparseIntArray();
+
+    /**
+     * The handler of the main thread, receiving the labels formatted off-thread. A view
+     * only runs posted runnables from other threads reliably while attached.
+     */
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Incremented whenever the cached labels become invalid, so that labels formatted
+     * for the previous ones are dropped.
+     */
+    private int mLabelGeneration;
+
+    /**
+     * Command for prefetching the labels ahead of the wheel while the main thread is idle.
+     */
+    private PrefetchLabelsCommand mPrefetchLabelsCommand;
+
+    /**
+     * The cache of rendered labels, null to draw the labels as text.
+     */
+    private LabelBitmapCache mLabelBitmapCache;
+
     /**
      * Interface to listen for changes of the current value.
      */
@@ -696,6 +1003,81 @@ public class NumberPicker extends LinearLayout {
         public String format(int value);
     }
 
+    /**
+     * Interface to be notified around the work done for every frame, so that the
+     * allocations made by it can be counted, e.g. with the thread allocation counters of
+     * {@link android.os.Debug} on a device or of the JVM in tests. The sections may nest.
+     */
+    public interface AllocationTracker {
+
+        @IntDef({SECTION_DRAW, SECTION_SCROLL, SECTION_COMPUTE_SCROLL})
+        @Retention(RetentionPolicy.SOURCE)
+        public @interface Section {
+        }
+
+        /**
+         * Drawing the picker in {@link NumberPicker#onDraw(Canvas)}.
+         */
+        public static int SECTION_DRAW = 0;
+
+        /**
+         * Moving the selector wheel in {@link NumberPicker#scrollBy(int, int)}.
+         */
+        public static int SECTION_SCROLL = 1;
+
+        /**
+         * Advancing the scrollers in {@link NumberPicker#computeScroll()}.
+         */
+        public static int SECTION_COMPUTE_SCROLL = 2;
+
+        /**
+         * Called before the work of a section starts.
+         *
+         * @param picker  The NumberPicker doing the work.
+         * @param section The section.
+         */
+        public void onSectionStart(NumberPicker picker, @Section int section);
+
+        /**
+         * Called after the work of a section has ended.
+         *
+         * @param picker  The NumberPicker doing the work.
+         * @param section The section.
+         */
+        public void onSectionEnd(NumberPicker picker, @Section int section);
+    }
+
+    /**
+     * Interface to listen for the performance of the picker. The metrics are collected
+     * per gesture, from the moment the picker leaves {@link OnScrollListener#SCROLL_STATE_IDLE}
+     * until it returns to it, and reported once.
+     */
+    public interface OnMetricsListener {
+
+        /**
+         * Called when a gesture has ended.
+         *
+         * @param picker  The NumberPicker associated with this listener.
+         * @param metrics The metrics of the gesture, only valid during this call.
+         */
+        public void onGestureMetrics(NumberPicker picker, GestureMetrics metrics);
+    }
+
+    /**
+     * Interface to listen for calls of the formatter exceeding their budget.
+     */
+    public interface OnSlowFormatListener {
+
+        /**
+         * Called after a call of the formatter has taken longer than the budget.
+         *
+         * @param picker        The NumberPicker associated with this listener.
+         * @param value         The formatted value.
+         * @param durationNanos The duration of the call.
+         */
+        public void onSlowFormat(NumberPicker picker, int value, long durationNanos);
+    }
+
     /**
      * Create a new number picker.
      *
@@ -727,11 +1109,9 @@ public class NumberPicker extends LinearLayout {
         mContext = context;
         mNumberFormatter = NumberFormat.getInstance();
 
-        final TypedArray attributes = context.obtainStyledAttributes(attrs,
-                R.styleable.NumberPicker, defStyle, 0);
+        final ParsedStyle style = obtainParsedStyle(context, attrs, defStyle);
 
-        final Drawable selectionDivider = attributes.getDrawable(
-                R.styleable.NumberPicker_np_divider);
+        final Drawable selectionDivider = style.newDividerDrawable(getResources());
         if (selectionDivider != null) {
             selectionDivider.setCallback(this);
             if (selectionDivider.isStateful()) {
@@ -739,82 +1119,57 @@ public class NumberPicker extends LinearLayout {
             }
             mDividerDrawable = selectionDivider;
         } else {
-            mDividerColor = attributes.getColor(R.styleable.NumberPicker_np_dividerColor,
-                    mDividerColor);
+            mDividerColor = style.mDividerColor;
             setDividerColor(mDividerColor);
         }
 
-        final DisplayMetrics displayMetrics = getResources().getDisplayMetrics();
-        final int defDividerDistance = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP,
-                UNSCALED_DEFAULT_DIVIDER_DISTANCE, displayMetrics);
-        final int defDividerThickness = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP,
-                UNSCALED_DEFAULT_DIVIDER_THICKNESS, displayMetrics);
-        mDividerDistance = attributes.getDimensionPixelSize(
-                R.styleable.NumberPicker_np_dividerDistance, defDividerDistance);
-        mDividerLength = attributes.getDimensionPixelSize(
-                R.styleable.NumberPicker_np_dividerLength, 0);
-        mDividerThickness = attributes.getDimensionPixelSize(
-                R.styleable.NumberPicker_np_dividerThickness, defDividerThickness);
-        mDividerType = attributes.getInt(R.styleable.NumberPicker_np_dividerType, SIDE_LINES);
+        mDividerDistance = style.mDividerDistance;
+        mDividerLength = style.mDividerLength;
+        mDividerThickness = style.mDividerThickness;
+        mDividerType = style.mDividerType;
 
-        mOrder = attributes.getInt(R.styleable.NumberPicker_np_order, ASCENDING);
-        mOrientation = attributes.getInt(R.styleable.NumberPicker_np_orientation, VERTICAL);
+        mOrder = style.mOrder;
+        mOrientation = style.mOrientation;
 
-        final float width = attributes.getDimensionPixelSize(R.styleable.NumberPicker_np_width,
-                SIZE_UNSPECIFIED);
-        final float height = attributes.getDimensionPixelSize(R.styleable.NumberPicker_np_height,
-                SIZE_UNSPECIFIED);
+        final float width = style.mWidth;
+        final float height = style.mHeight;
 
         setWidthAndHeight();
 
         mComputeMaxWidth = true;
 
-        mValue = attributes.getInt(R.styleable.NumberPicker_np_value, mValue);
-        mMaxValue = attributes.getInt(R.styleable.NumberPicker_np_max, mMaxValue);
-        mMinValue = attributes.getInt(R.styleable.NumberPicker_np_min, mMinValue);
-
-        mSelectedTextAlign = attributes.getInt(R.styleable.NumberPicker_np_selectedTextAlign,
-                mSelectedTextAlign);
-        mSelectedTextColor = attributes.getColor(R.styleable.NumberPicker_np_selectedTextColor,
-                mSelectedTextColor);
-        mSelectedTextSize = attributes.getDimension(R.styleable.NumberPicker_np_selectedTextSize,
-                spToPx(mSelectedTextSize));
-        mSelectedTextStrikeThru = attributes.getBoolean(
-                R.styleable.NumberPicker_np_selectedTextStrikeThru, mSelectedTextStrikeThru);
-        mSelectedTextUnderline = attributes.getBoolean(
-                R.styleable.NumberPicker_np_selectedTextUnderline, mSelectedTextUnderline);
-        mSelectedTypeface = Typeface.create(attributes.getString(
-                R.styleable.NumberPicker_np_selectedTypeface), Typeface.NORMAL);
-        mTextAlign = attributes.getInt(R.styleable.NumberPicker_np_textAlign, mTextAlign);
-        mTextColor = attributes.getColor(R.styleable.NumberPicker_np_textColor, mTextColor);
-        mTextSize = attributes.getDimension(R.styleable.NumberPicker_np_textSize,
-                spToPx(mTextSize));
-        mTextStrikeThru = attributes.getBoolean(
-                R.styleable.NumberPicker_np_textStrikeThru, mTextStrikeThru);
-        mTextUnderline = attributes.getBoolean(
-                R.styleable.NumberPicker_np_textUnderline, mTextUnderline);
-        mTypeface = Typeface.create(attributes.getString(R.styleable.NumberPicker_np_typeface),
-                Typeface.NORMAL);
-        mFormatter = stringToFormatter(attributes.getString(R.styleable.NumberPicker_np_formatter));
-        mFadingEdgeEnabled = attributes.getBoolean(R.styleable.NumberPicker_np_fadingEdgeEnabled,
-                mFadingEdgeEnabled);
-        mFadingEdgeStrength = attributes.getFloat(R.styleable.NumberPicker_np_fadingEdgeStrength,
-                mFadingEdgeStrength);
-        mScrollerEnabled = attributes.getBoolean(R.styleable.NumberPicker_np_scrollerEnabled,
-                mScrollerEnabled);
-        mWheelItemCount = attributes.getInt(R.styleable.NumberPicker_np_wheelItemCount,
-                mWheelItemCount);
-        mLineSpacingMultiplier = attributes.getFloat(
-                R.styleable.NumberPicker_np_lineSpacingMultiplier, mLineSpacingMultiplier);
-        mMaxFlingVelocityCoefficient = attributes.getInt(
-                R.styleable.NumberPicker_np_maxFlingVelocityCoefficient,
-                mMaxFlingVelocityCoefficient);
-        mHideWheelUntilFocused = attributes.getBoolean(
-                R.styleable.NumberPicker_np_hideWheelUntilFocused, false);
-        mAccessibilityDescriptionEnabled = attributes.getBoolean(
-                R.styleable.NumberPicker_np_accessibilityDescriptionEnabled, true);
-        mItemSpacing = attributes.getDimensionPixelSize(
-                R.styleable.NumberPicker_np_itemSpacing, 0);
+        if (style.mMaxValue < 0) {
+            throw new IllegalArgumentException("maxValue must be >= 0");
+        }
+        // Set the whole range at once, the value is clamped into it. Setting the value
+        // first would wrap it into the range, as wrapping is preferred by default.
+        mWheel.setRange(style.mMinValue, style.mMaxValue, style.mValue);
+
+        mSelectedTextAlign = style.mSelectedTextAlign;
+        mSelectedTextColor = style.mSelectedTextColor;
+        mSelectedTextSize = style.mSelectedTextSize;
+        mSelectedTextStrikeThru = style.mSelectedTextStrikeThru;
+        mSelectedTextUnderline = style.mSelectedTextUnderline;
+        mSelectedTypeface = style.mSelectedTypeface;
+        mTextAlign = style.mTextAlign;
+        mTextColor = style.mTextColor;
+        mTextSize = style.mTextSize;
+        mTextStrikeThru = style.mTextStrikeThru;
+        mTextUnderline = style.mTextUnderline;
+        mTypeface = style.mTypeface;
+        mFormatter = stringToFormatter(style.mFormatter);
+        mFadingEdgeEnabled = style.mFadingEdgeEnabled;
+        mFadingEdgeStrength = style.mFadingEdgeStrength;
+        mScrollerEnabled = style.mScrollerEnabled;
+        mWheelItemCount = style.mWheelItemCount;
+        mLineSpacingMultiplier = style.mLineSpacingMultiplier;
+        mMaxFlingVelocityCoefficient = style.mMaxFlingVelocityCoefficient;
+        mHideWheelUntilFocused = style.mHideWheelUntilFocused;
+        mWheelCurved = style.mWheelCurved;
+        mMagnifierEnabled = style.mMagnifierEnabled;
+        mAcceleratedScrollEnabled = style.mAcceleratedScrollEnabled;
+        mAccessibilityDescriptionEnabled = style.mAccessibilityDescriptionEnabled;
+        mItemSpacing = style.mItemSpacing;
         // By default LinearLayout that we extend is not drawn. This is
         // its draw() method is not called but dispatchDraw() is called
         // directly (see ViewGroup.drawChild()). However, this class uses
@@ -838,6 +1193,10 @@ public class NumberPicker extends LinearLayout {
         paint.setTextAlign(Paint.Align.CENTER);
         mSelectorWheelPaint = paint;
 
+        // create the fling and adjust scrollers
+        mFlingScroller = new Scroller(context, null, true);
+        mAdjustScroller = new Scroller(context, new DecelerateInterpolator(2.5f));
+
         setSelectedTextColor(mSelectedTextColor);
         setTextColor(mTextColor);
         setTextSize(mTextSize);
@@ -845,17 +1204,13 @@ public class NumberPicker extends LinearLayout {
         setTypeface(mTypeface);
         setSelectedTypeface(mSelectedTypeface);
         setFormatter(mFormatter);
+        initializeSelectorWheelIndices();
         updateInputTextView();
-
-        setValue(mValue);
-        setMaxValue(mMaxValue);
-        setMinValue(mMinValue);
+        tryComputeMaxWidth();
 
         setWheelItemCount(mWheelItemCount);
 
-        mWrapSelectorWheel = attributes.getBoolean(R.styleable.NumberPicker_np_wrapSelectorWheel,
-                mWrapSelectorWheel);
-        setWrapSelectorWheel(mWrapSelectorWheel);
+        setWrapSelectorWheel(style.mWrapSelectorWheel);
 
         if (width != SIZE_UNSPECIFIED && height != SIZE_UNSPECIFIED) {
             setScaleX(width / mMinWidth);
@@ -877,10 +1232,6 @@ public class NumberPicker extends LinearLayout {
         mMaximumFlingVelocity = mViewConfiguration.getScaledMaximumFlingVelocity()
                 / mMaxFlingVelocityCoefficient;
 
-        // create the fling and adjust scrollers
-        mFlingScroller = new Scroller(context, null, true);
-        mAdjustScroller = new Scroller(context, new DecelerateInterpolator(2.5f));
-
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
             // If not explicitly specified this view is important for accessibility.
             if (getImportantForAccessibility() == IMPORTANT_FOR_ACCESSIBILITY_AUTO) {
@@ -895,12 +1246,11 @@ public class NumberPicker extends LinearLayout {
                 setFocusableInTouchMode(true);
             }
         }
-
-        attributes.recycle();
     }
 
     @Override
     protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+        refreshTraceEnabled(false);
         final int msrdWdth = getMeasuredWidth();
         final int msrdHght = getMeasuredHeight();
 
@@ -915,25 +1265,105 @@ public class NumberPicker extends LinearLayout {
         mSelectedTextCenterX = mSelectedText.getX() + mSelectedText.getMeasuredWidth() / 2f - 2f;
         mSelectedTextCenterY = mSelectedText.getY() + mSelectedText.getMeasuredHeight() / 2f - 5f;
 
-        if (changed) {
+        // A move without a resize (e.g. the parent shifting for the keyboard) keeps the
+        // selector geometry, which only depends on our size and the text metrics.
+        final int width = right - left;
+        final int height = bottom - top;
+        if (mSelectorGeometryDirty || (changed
+                && (width != mSelectorGeometryWidth || height != mSelectorGeometryHeight))) {
+            mSelectorGeometryDirty = false;
+            mSelectorGeometryWidth = width;
+            mSelectorGeometryHeight = height;
+
             // need to do all this when we know our size
             initializeSelectorWheel();
             initializeFadingEdges();
+            updateDividerPositions();
+        }
+        updateWheelBounds();
+        updateDividerBounds();
+    }
 
-            final int dividerDistance = 2 * mDividerThickness + mDividerDistance;
-            if (isHorizontalMode()) {
-                mLeftDividerLeft = (getWidth() - mDividerDistance) / 2 - mDividerThickness;
-                mRightDividerRight = mLeftDividerLeft + dividerDistance;
-                mBottomDividerBottom = getHeight();
-            } else {
-                mTopDividerTop = (getHeight() - mDividerDistance) / 2 - mDividerThickness;
-                mBottomDividerBottom = mTopDividerTop + dividerDistance;
-            }
+    /**
+     * Computes the positions of the dividers around the selected item from our size
+     * and the divider distance and thickness.
+     */
+    private void updateDividerPositions() {
+        final int dividerDistance = 2 * mDividerThickness + mDividerDistance;
+        if (isHorizontalMode()) {
+            mLeftDividerLeft = (getWidth() - mDividerDistance) / 2 - mDividerThickness;
+            mRightDividerRight = mLeftDividerLeft + dividerDistance;
+            mBottomDividerBottom = getHeight();
+        } else {
+            mTopDividerTop = (getHeight() - mDividerDistance) / 2 - mDividerThickness;
+            mBottomDividerBottom = mTopDividerTop + dividerDistance;
+        }
+    }
+
+    /**
+     * Moves the dividers after their distance or thickness changed, without waiting for
+     * a layout that changes our size.
+     */
+    private void onDividerGeometryChanged() {
+        updateDividerPositions();
+        updateWheelBounds();
+        updateDividerBounds();
+        invalidate();
+    }
+
+    /**
+     * Computes the area of the selector items: the content area, widened across the
+     * scroll axis to the text which may overflow it, and narrowed along the scroll axis
+     * to the dividers when the wheel is clipped to them.
+     */
+    private void updateWheelBounds() {
+        final int width = getWidth();
+        final int height = getHeight();
+        final Rect bounds = mWheelBounds;
+        bounds.set(getPaddingLeft(), getPaddingTop(),
+                width - getPaddingRight(), height - getPaddingBottom());
+        final boolean clipped = mRealWheelItemCount < DEFAULT_WHEEL_ITEM_COUNT;
+        if (isHorizontalMode()) {
+            // the items share the baseline of the input text
+            final int textSize = (int) Math.ceil(getMaxTextSize());
+            final int baseline = mSelectedText.getTop() + mSelectedText.getBaseline();
+            bounds.top = Math.min(bounds.top,
+                    Math.min(mSelectedText.getTop(), baseline - textSize));
+            bounds.bottom = Math.max(bounds.bottom,
+                    Math.max(mSelectedText.getBottom(), baseline + textSize));
+            bounds.left = clipped ? mLeftDividerLeft : 0;
+            bounds.right = clipped ? mRightDividerRight : width;
+        } else {
+            // the items are aligned on the center, whatever their alignment
+            final int centerX = width / 2;
+            bounds.left = Math.min(bounds.left, centerX - mMaxWidth);
+            bounds.right = Math.max(bounds.right, centerX + mMaxWidth);
+            bounds.top = clipped ? mTopDividerTop : 0;
+            bounds.bottom = clipped ? mBottomDividerBottom : height;
+        }
+        if (!bounds.intersect(0, 0, width, height)) {
+            bounds.setEmpty();
+        }
+    }
+
+    /**
+     * Invalidates only the area of the selector items. View itself skips repeated
+     * invalidations until the next draw.
+     */
+    @SuppressWarnings("deprecation") // the rect only matters for software rendering
+    private void invalidateWheel() {
+        invalidateIdlePicture();
+        final Rect bounds = mWheelBounds;
+        if (bounds.isEmpty()) {
+            super.invalidate();
+        } else {
+            invalidate(bounds.left, bounds.top, bounds.right, bounds.bottom);
         }
     }
 
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        refreshTraceEnabled(false);
         // Try greedily to fit the max width and height.
         final int newWidthMeasureSpec = makeMeasureSpec(widthMeasureSpec, mMaxWidth);
         final int newHeightMeasureSpec = makeMeasureSpec(heightMeasureSpec, mMaxHeight);
@@ -956,38 +1386,19 @@ public class NumberPicker extends LinearLayout {
      */
     private boolean moveToFinalScrollerPosition(Scroller scroller) {
         scroller.forceFinished(true);
-        if (isHorizontalMode()) {
-            int amountToScroll = scroller.getFinalX() - scroller.getCurrX();
-            int futureScrollOffset = (mCurrentScrollOffset + amountToScroll) % mSelectorElementSize;
-            int overshootAdjustment = mInitialScrollOffset - futureScrollOffset;
-            if (overshootAdjustment != 0) {
-                if (Math.abs(overshootAdjustment) > mSelectorElementSize / 2) {
-                    if (overshootAdjustment > 0) {
-                        overshootAdjustment -= mSelectorElementSize;
-                    } else {
-                        overshootAdjustment += mSelectorElementSize;
-                    }
-                }
-                amountToScroll += overshootAdjustment;
+        final boolean horizontalMode = isHorizontalMode();
+        int amountToScroll = horizontalMode
+                ? scroller.getFinalX() - scroller.getCurrX()
+                : scroller.getFinalY() - scroller.getCurrY();
+        final int overshootAdjustment = mWheel.getOvershootAdjustment(amountToScroll);
+        if (overshootAdjustment != 0) {
+            amountToScroll += overshootAdjustment;
+            if (horizontalMode) {
                 scrollBy(amountToScroll, 0);
-                return true;
-            }
-        } else {
-            int amountToScroll = scroller.getFinalY() - scroller.getCurrY();
-            int futureScrollOffset = (mCurrentScrollOffset + amountToScroll) % mSelectorElementSize;
-            int overshootAdjustment = mInitialScrollOffset - futureScrollOffset;
-            if (overshootAdjustment != 0) {
-                if (Math.abs(overshootAdjustment) > mSelectorElementSize / 2) {
-                    if (overshootAdjustment > 0) {
-                        overshootAdjustment -= mSelectorElementSize;
-                    } else {
-                        overshootAdjustment += mSelectorElementSize;
-                    }
-                }
-                amountToScroll += overshootAdjustment;
+            } else {
                 scrollBy(0, amountToScroll);
-                return true;
             }
+            return true;
         }
         return false;
     }
@@ -1077,7 +1488,7 @@ public class NumberPicker extends LinearLayout {
                     } else {
                         int deltaMoveX = (int) ((currentMoveX - mLastDownOrMoveEventX));
                         scrollBy(deltaMoveX, 0);
-                        invalidate();
+                        invalidateWheel();
                     }
                     mLastDownOrMoveEventX = currentMoveX;
                 } else {
@@ -1091,7 +1502,7 @@ public class NumberPicker extends LinearLayout {
                     } else {
                         int deltaMoveY = (int) ((currentMoveY - mLastDownOrMoveEventY));
                         scrollBy(0, deltaMoveY);
-                        invalidate();
+                        invalidateWheel();
                     }
                     mLastDownOrMoveEventY = currentMoveY;
                 }
@@ -1110,8 +1521,8 @@ public class NumberPicker extends LinearLayout {
                         int eventX = (int) event.getX();
                         int deltaMoveX = (int) Math.abs(eventX - mLastDownEventX);
                         if (deltaMoveX <= mTouchSlop) {
-                            int selectorIndexOffset = (eventX / mSelectorElementSize)
-                                    - mWheelMiddleItemIndex;
+                            int selectorIndexOffset = (eventX / mWheel.getElementSize())
+                                    - mWheel.getMiddleItemIndex();
                             if (selectorIndexOffset > 0) {
                                 changeValueByOne(true);
                             } else if (selectorIndexOffset < 0) {
@@ -1133,8 +1544,8 @@ public class NumberPicker extends LinearLayout {
                         int eventY = (int) event.getY();
                         int deltaMoveY = (int) Math.abs(eventY - mLastDownEventY);
                         if (deltaMoveY <= mTouchSlop) {
-                            int selectorIndexOffset = (eventY / mSelectorElementSize)
-                                    - mWheelMiddleItemIndex;
+                            int selectorIndexOffset = (eventY / mWheel.getElementSize())
+                                    - mWheel.getMiddleItemIndex();
                             if (selectorIndexOffset > 0) {
                                 changeValueByOne(true);
                             } else if (selectorIndexOffset < 0) {
@@ -1180,7 +1591,7 @@ public class NumberPicker extends LinearLayout {
             case KeyEvent.KEYCODE_DPAD_UP:
                 switch (event.getAction()) {
                     case KeyEvent.ACTION_DOWN:
-                        if (mWrapSelectorWheel || ((keyCode == KeyEvent.KEYCODE_DPAD_DOWN)
+                        if (getWrapSelectorWheel() || ((keyCode == KeyEvent.KEYCODE_DPAD_DOWN)
                                 ? getValue() < getMaxValue() : getValue() > getMinValue())) {
                             requestFocus();
                             mLastHandledDownDpadKeyCode = keyCode;
@@ -1216,6 +1627,19 @@ public class NumberPicker extends LinearLayout {
 
     @Override
     public void computeScroll() {
+        // computeScroll starts every frame of this view
+        refreshTraceEnabled(true);
+        final AllocationTracker tracker = mAllocationTracker;
+        if (tracker != null) {
+            tracker.onSectionStart(this, AllocationTracker.SECTION_COMPUTE_SCROLL);
+        }
+        computeScrollInternal();
+        if (tracker != null) {
+            tracker.onSectionEnd(this, AllocationTracker.SECTION_COMPUTE_SCROLL);
+        }
+    }
+
+    private void computeScrollInternal() {
         if (!isScrollerEnabled()) {
             return;
         }
@@ -1228,6 +1652,9 @@ public class NumberPicker extends LinearLayout {
             }
         }
         scroller.computeScrollOffset();
+        if (scroller == mFlingScroller && mScrollState == OnScrollListener.SCROLL_STATE_FLING) {
+            updateScrollStepSize(scroller.getCurrVelocity());
+        }
         if (isHorizontalMode()) {
             int currentScrollerX = scroller.getCurrX();
             if (mPreviousScrollerX == 0) {
@@ -1245,8 +1672,11 @@ public class NumberPicker extends LinearLayout {
         }
         if (scroller.isFinished()) {
             onScrollerFinished(scroller);
-        } else {
+        } else if (mWheelBounds.isEmpty()) {
             postInvalidate();
+        } else {
+            postInvalidate(mWheelBounds.left, mWheelBounds.top,
+                    mWheelBounds.right, mWheelBounds.bottom);
         }
     }
 
@@ -1258,106 +1688,173 @@ public class NumberPicker extends LinearLayout {
 
     @Override
     public void scrollBy(int x, int y) {
+        final AllocationTracker tracker = mAllocationTracker;
+        if (tracker != null) {
+            tracker.onSectionStart(this, AllocationTracker.SECTION_SCROLL);
+        }
+        final boolean traced = beginTraceSection(TRACE_SCROLL_BY);
+        scrollByInternal(x, y);
+        endTraceSection(traced);
+        if (tracker != null) {
+            tracker.onSectionEnd(this, AllocationTracker.SECTION_SCROLL);
+        }
+    }
+
+    private void scrollByInternal(int x, int y) {
         if (!isScrollerEnabled()) {
             return;
         }
-        int[] selectorIndices = getSelectorIndices();
-        int startScrollOffset = mCurrentScrollOffset;
-        int gap = (int) getMaxTextSize();
+        final int startScrollOffset = mWheel.getCurrentOffset();
+        final int gap = (int) getMaxTextSize();
+        if (mMeasuringGesture && mScrollState == OnScrollListener.SCROLL_STATE_FLING) {
+            mGestureMetrics.mFlingDistance += Math.abs(isHorizontalMode() ? x : y);
+        }
         if (isHorizontalMode()) {
-            if (isAscendingOrder()) {
-                if (!mWrapSelectorWheel && x > 0
-                        && selectorIndices[mWheelMiddleItemIndex] <= mMinValue) {
-                    mCurrentScrollOffset = mInitialScrollOffset;
-                    return;
-                }
-                if (!mWrapSelectorWheel && x < 0
-                        && selectorIndices[mWheelMiddleItemIndex] >= mMaxValue) {
-                    mCurrentScrollOffset = mInitialScrollOffset;
-                    return;
-                }
-            } else {
-                if (!mWrapSelectorWheel && x > 0
-                        && selectorIndices[mWheelMiddleItemIndex] >= mMaxValue) {
-                    mCurrentScrollOffset = mInitialScrollOffset;
-                    return;
-                }
-                if (!mWrapSelectorWheel && x < 0
-                        && selectorIndices[mWheelMiddleItemIndex] <= mMinValue) {
-                    mCurrentScrollOffset = mInitialScrollOffset;
-                    return;
-                }
+            if (mWheel.scrollBy(x, gap, isAscendingOrder())) {
+                onScrollChanged(mWheel.getCurrentOffset(), 0, startScrollOffset, 0);
+                traceScrollOffset();
+                schedulePrefetchLabels(x);
             }
-
-            mCurrentScrollOffset += x;
         } else {
-            if (isAscendingOrder()) {
-                if (!mWrapSelectorWheel && y > 0
-                        && selectorIndices[mWheelMiddleItemIndex] <= mMinValue) {
-                    mCurrentScrollOffset = mInitialScrollOffset;
-                    return;
-                }
-                if (!mWrapSelectorWheel && y < 0
-                        && selectorIndices[mWheelMiddleItemIndex] >= mMaxValue) {
-                    mCurrentScrollOffset = mInitialScrollOffset;
-                    return;
-                }
-            } else {
-                if (!mWrapSelectorWheel && y > 0
-                        && selectorIndices[mWheelMiddleItemIndex] >= mMaxValue) {
-                    mCurrentScrollOffset = mInitialScrollOffset;
-                    return;
-                }
-                if (!mWrapSelectorWheel && y < 0
-                        && selectorIndices[mWheelMiddleItemIndex] <= mMinValue) {
-                    mCurrentScrollOffset = mInitialScrollOffset;
-                    return;
-                }
+            if (mWheel.scrollBy(y, gap, isAscendingOrder())) {
+                onScrollChanged(0, mWheel.getCurrentOffset(), 0, startScrollOffset);
+                traceScrollOffset();
+                schedulePrefetchLabels(y);
             }
+        }
+    }
 
-            mCurrentScrollOffset += y;
+    /**
+     * Schedules the labels about to enter the wheel to be cached when the main thread is
+     * idle, so that they are not formatted by the frame showing them. The faster the fling,
+     * the more labels are prefetched.
+     *
+     * @param delta The distance just scrolled.
+     */
+    private void schedulePrefetchLabels(int delta) {
+        final int elementSize = mWheel.getElementSize();
+        if (delta == 0 || elementSize <= 0) {
+            return;
         }
+        final float velocity = mFlingScroller.isFinished() ? 0 : mFlingScroller.getCurrVelocity();
+        final int count = Math.min(Math.max(
+                (int) (velocity * PREFETCH_LOOKAHEAD_MILLIS / 1000 / elementSize),
+                MIN_PREFETCH_COUNT), MAX_PREFETCH_COUNT);
+        // moving the content towards the start shows the larger values in ascending order
+        final boolean increasing = (delta < 0) == isAscendingOrder();
+        if (mPrefetchLabelsCommand == null) {
+            mPrefetchLabelsCommand = new PrefetchLabelsCommand();
+        }
+        mPrefetchLabelsCommand.schedule(increasing, count);
+    }
 
-        while (mCurrentScrollOffset - mInitialScrollOffset > gap) {
-            mCurrentScrollOffset -= mSelectorElementSize;
-            if (isAscendingOrder()) {
-                decrementSelectorIndices(selectorIndices);
-            } else {
-                incrementSelectorIndices(selectorIndices);
+    /**
+     * Caches the labels of the next <code>count</code> values beyond the wheel.
+     */
+    private void prefetchLabels(boolean increasing, int count) {
+        final long startNanos = System.nanoTime();
+        final int[] selectorIndices = getSelectorIndices();
+        int selectorIndex = selectorIndices[increasing ? selectorIndices.length - 1 : 0];
+        final int stepSize = mWheel.getStepSize();
+        for (int i = 0; i < count; i++) {
+            selectorIndex += increasing ? stepSize : -stepSize;
+            if (mWheel.getWrapSelectorWheel()) {
+                selectorIndex = mWheel.getWrappedSelectorIndex(selectorIndex);
+            } else if (selectorIndex < mWheel.getMinValue()
+                    || selectorIndex > mWheel.getMaxValue()) {
+                return;
             }
-            setValueInternal(selectorIndices[mWheelMiddleItemIndex], true);
-            if (!mWrapSelectorWheel && selectorIndices[mWheelMiddleItemIndex] < mMinValue) {
-                mCurrentScrollOffset = mInitialScrollOffset;
+            ensureCachedScrollSelectorValue(selectorIndex, true);
+            if (System.nanoTime() - startNanos > PREFETCH_BUDGET_NANOS) {
+                return;
             }
         }
-        while (mCurrentScrollOffset - mInitialScrollOffset < -gap) {
-            mCurrentScrollOffset += mSelectorElementSize;
-            if (isAscendingOrder()) {
-                incrementSelectorIndices(selectorIndices);
-            } else {
-                decrementSelectorIndices(selectorIndices);
-            }
-            setValueInternal(selectorIndices[mWheelMiddleItemIndex], true);
-            if (!mWrapSelectorWheel && selectorIndices[mWheelMiddleItemIndex] > mMaxValue) {
-                mCurrentScrollOffset = mInitialScrollOffset;
+    }
+
+    /**
+     * Sets how many values the wheel steps over per element for the given scroll
+     * <code>velocity</code>. Each multiple of the accelerated velocity makes the step ten
+     * times larger, as long as the wheel still spans less than the range.
+     *
+     * @param velocity The scroll velocity in pixels per second.
+     */
+    private void updateScrollStepSize(float velocity) {
+        int stepSize = 1;
+        final int elementSize = mWheel.getElementSize();
+        if (mAcceleratedScrollEnabled && elementSize > 0) {
+            final float elementsPerSecond = Math.abs(velocity) / elementSize;
+            final long range = (long) mWheel.getMaxValue() - mWheel.getMinValue();
+            float threshold = ACCELERATED_SCROLL_VELOCITY;
+            while (elementsPerSecond > threshold && stepSize < ACCELERATED_SCROLL_MAX_STEP
+                    && stepSize * 10L * mWheelItemCount <= range) {
+                stepSize *= 10;
+                threshold += ACCELERATED_SCROLL_VELOCITY;
             }
         }
+        if (stepSize != mWheel.getStepSize()) {
+            mWheel.setStepSize(stepSize);
+            mWheel.initializeSelectorIndices();
+            invalidateWheel();
+        }
+    }
 
-        if (startScrollOffset != mCurrentScrollOffset) {
-            if (isHorizontalMode()) {
-                onScrollChanged(mCurrentScrollOffset, 0, startScrollOffset, 0);
-            } else {
-                onScrollChanged(0, mCurrentScrollOffset, 0, startScrollOffset);
-            }
+    private void traceScrollOffset() {
+        if (mTraceEnabled) {
+            TraceCompat.setCounter(TRACE_SCROLL_OFFSET, mWheel.getCurrentOffset());
+        }
+    }
+
+    /**
+     * Checks whether tracing is enabled. From API 29 this is a cheap call done for every
+     * frame. Before, it is a reflective call which allocates, so it is only done outside
+     * of frames: when measuring, laying out, setting the value or starting a gesture, and
+     * at most once per {@link #TRACE_SAMPLE_INTERVAL_NANOS}.
+     *
+     * @param frame Whether this is called while computing a frame.
+     */
+    private void refreshTraceEnabled(boolean frame) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            mTraceEnabled = Trace.isEnabled();
+            return;
+        }
+        if (frame) {
+            return;
+        }
+        final long nowNanos = System.nanoTime();
+        if (mTraceSampledNanos == 0
+                || nowNanos - mTraceSampledNanos >= TRACE_SAMPLE_INTERVAL_NANOS) {
+            mTraceSampledNanos = nowNanos;
+            mTraceEnabled = TraceCompat.isEnabled();
+        }
+    }
+
+    /**
+     * Begins a trace section if tracing is enabled.
+     *
+     * @return Whether the section was begun, to be passed to {@link #endTraceSection(boolean)}
+     * so that the section is ended even if the flag is refreshed meanwhile.
+     */
+    private boolean beginTraceSection(String sectionName) {
+        if (mTraceEnabled) {
+            TraceCompat.beginSection(sectionName);
+            return true;
+        }
+        return false;
+    }
+
+    private void endTraceSection(boolean traced) {
+        if (traced) {
+            TraceCompat.endSection();
         }
     }
 
     private int computeScrollOffset(boolean isHorizontalMode) {
-        return isHorizontalMode ? mCurrentScrollOffset : 0;
+        return isHorizontalMode ? mWheel.getCurrentOffset() : 0;
     }
 
     private int computeScrollRange(boolean isHorizontalMode) {
-        return isHorizontalMode ? (mMaxValue - mMinValue + 1) * mSelectorElementSize : 0;
+        return isHorizontalMode
+                ? (mWheel.getMaxValue() - mWheel.getMinValue() + 1) * mWheel.getElementSize() : 0;
     }
 
     private int computeScrollExtent(boolean isHorizontalMode) {
@@ -1398,6 +1895,57 @@ public class NumberPicker extends LinearLayout {
     protected void onConfigurationChanged(Configuration newConfig) {
         super.onConfigurationChanged(newConfig);
         mNumberFormatter = NumberFormat.getInstance();
+        // a formatter may depend on the locale as well
+        if (mDisplayedValues == null) {
+            initializeSelectorWheelIndices();
+            updateInputTextView();
+            invalidate();
+        }
+    }
+
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        final SavedState savedState = new SavedState(super.onSaveInstanceState());
+        savedState.mValue = mWheel.getValue();
+        savedState.mMinValue = mWheel.getMinValue();
+        savedState.mMaxValue = mWheel.getMaxValue();
+        savedState.mWrapSelectorWheelPreferred = mWheel.getWrapSelectorWheelPreferred();
+        savedState.mDisplayedValuesFingerprint = getDisplayedValuesFingerprint();
+        return savedState;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        final SavedState savedState = (SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+
+        final boolean wrapChanged =
+                mWheel.getWrapSelectorWheelPreferred() != savedState.mWrapSelectorWheelPreferred;
+        mWheel.setWrapSelectorWheelPreferred(savedState.mWrapSelectorWheelPreferred);
+        if (savedState.mDisplayedValuesFingerprint != getDisplayedValuesFingerprint()) {
+            // The displayed values were replaced, so the saved range no longer applies.
+            rebind(mWheel.getMinValue(), mWheel.getMaxValue(), savedState.mValue);
+        } else if (savedState.mMinValue != mWheel.getMinValue()
+                || savedState.mMaxValue != mWheel.getMaxValue()
+                || savedState.mValue != mWheel.getValue()) {
+            rebind(savedState.mMinValue, savedState.mMaxValue, savedState.mValue);
+        } else if (wrapChanged) {
+            // Same inputs, so the cached labels and measurements are still valid.
+            initializeSelectorWheelIndices();
+            invalidate();
+        }
+    }
+
+    /**
+     * @return A hash of the displayed values, used to tell whether a saved state still
+     * matches the labels of this picker.
+     */
+    private int getDisplayedValuesFingerprint() {
+        return Arrays.hashCode(mDisplayedValues);
     }
 
     /**
@@ -1427,22 +1975,60 @@ public class NumberPicker extends LinearLayout {
         mOnScrollListener = onScrollListener;
     }
 
+    /**
+     * Sets the tracker to be notified around the per-frame work, to guard it against
+     * allocations.
+     *
+     * @param allocationTracker The tracker, or null to remove it.
+     */
+    public void setAllocationTracker(AllocationTracker allocationTracker) {
+        mAllocationTracker = allocationTracker;
+    }
+
+    /**
+     * Sets the listener to be notified with the metrics of every gesture. Nothing is
+     * measured while no listener is set.
+     *
+     * @param onMetricsListener The listener, or null to remove it.
+     */
+    public void setOnMetricsListener(OnMetricsListener onMetricsListener) {
+        mOnMetricsListener = onMetricsListener;
+        if (onMetricsListener == null) {
+            mMeasuringGesture = false;
+        }
+    }
+
     /**
      * Set the formatter to be used for formatting the current value.
      * <p>
      * Note: If you have provided alternative values for the values this
      * formatter is never invoked.
      * </p>
+     * <p>
+     * The labels are cached per value and kept while scrolling. A formatter whose labels
+     * depend on other state, e.g. days depending on the month of another picker, must be
+     * followed by a call to {@link #invalidateLabels()} whenever that state changes.
+     * </p>
      *
      * @param formatter The formatter object. If formatter is <code>null</code>,
      *                  {@link String#valueOf(int)} will be used.
      * @see #setDisplayedValues(String[])
      */
     public void setFormatter(Formatter formatter) {
-        if (formatter == mFormatter) {
+        setFormatterInternal(formatter, false);
+    }
+
+    private void setFormatterInternal(Formatter formatter, boolean async) {
+        if (formatter == mFormatter && async == mFormatAsync) {
             return;
         }
         mFormatter = formatter;
+        mFormatAsync = async;
+        if (!async) {
+            mAsyncFormatExecutor = null;
+            mAsyncFormatPlaceholder = "";
+        }
+        mFormatterSlow = false;
         initializeSelectorWheelIndices();
         updateInputTextView();
     }
@@ -1476,6 +2062,7 @@ public class NumberPicker extends LinearLayout {
      * @see #setMaxValue(int)
      */
     public void setValue(int value) {
+        refreshTraceEnabled(false);
         setValueInternal(value, false);
     }
 
@@ -1497,23 +2084,20 @@ public class NumberPicker extends LinearLayout {
         if (!mComputeMaxWidth) {
             return;
         }
+        final boolean traced = beginTraceSection(TRACE_COMPUTE_MAX_WIDTH);
         mSelectorWheelPaint.setTextSize(getMaxTextSize());
         int maxTextWidth = 0;
         if (mDisplayedValues == null) {
             float maxDigitWidth = 0;
             for (int i = 0; i <= 9; i++) {
-                final float digitWidth = mSelectorWheelPaint.measureText(formatNumber(i));
+                // an asynchronous formatter may not be called here, measure the digits
+                final String digit = isFormatAsync() ? formatNumberWithLocale(i) : formatNumber(i);
+                final float digitWidth = mSelectorWheelPaint.measureText(digit);
                 if (digitWidth > maxDigitWidth) {
                     maxDigitWidth = digitWidth;
                 }
             }
-            int numberOfDigits = 0;
-            int current = mMaxValue;
-            while (current > 0) {
-                numberOfDigits++;
-                current = current / 10;
-            }
-            maxTextWidth = (int) (numberOfDigits * maxDigitWidth);
+            maxTextWidth = (int) (getNumberOfDigits(mWheel.getMaxValue()) * maxDigitWidth);
         } else {
             for (String displayedValue : mDisplayedValues) {
                 final float textWidth = mSelectorWheelPaint.measureText(displayedValue);
@@ -1525,8 +2109,23 @@ public class NumberPicker extends LinearLayout {
         maxTextWidth += mSelectedText.getPaddingLeft() + mSelectedText.getPaddingRight();
         if (mMaxWidth != maxTextWidth) {
             mMaxWidth = Math.max(maxTextWidth, mMinWidth);
+            updateWheelBounds();
+            updateDividerBounds();
             invalidate();
         }
+        endTraceSection(traced);
+    }
+
+    /**
+     * @return The number of decimal digits of the given positive <code>value</code>.
+     */
+    private static int getNumberOfDigits(int value) {
+        int numberOfDigits = 0;
+        while (value > 0) {
+            numberOfDigits++;
+            value = value / 10;
+        }
+        return numberOfDigits;
     }
 
     /**
@@ -1537,7 +2136,7 @@ public class NumberPicker extends LinearLayout {
      * @see #getMaxValue()
      */
     public boolean getWrapSelectorWheel() {
-        return mWrapSelectorWheel;
+        return mWheel.getWrapSelectorWheel();
     }
 
     /**
@@ -1558,23 +2157,7 @@ public class NumberPicker extends LinearLayout {
      * @param wrapSelectorWheel Whether to wrap.
      */
     public void setWrapSelectorWheel(boolean wrapSelectorWheel) {
-        mWrapSelectorWheelPreferred = wrapSelectorWheel;
-        updateWrapSelectorWheel();
-    }
-
-    /**
-     * Whether or not the selector wheel should be wrapped is determined by user choice and whether
-     * the choice is allowed. The former comes from {@link #setWrapSelectorWheel(boolean)}, the
-     * latter is calculated based on min & max value set vs selector's visual length. Therefore,
-     * this method should be called any time any of the 3 values (i.e. user choice, min and max
-     * value) gets updated.
-     */
-    private void updateWrapSelectorWheel() {
-        mWrapSelectorWheel = isWrappingAllowed() && mWrapSelectorWheelPreferred;
-    }
-
-    private boolean isWrappingAllowed() {
-        return mMaxValue - mMinValue >= mSelectorIndices.length - 1;
+        mWheel.setWrapSelectorWheelPreferred(wrapSelectorWheel);
     }
 
     /**
@@ -1591,13 +2174,116 @@ public class NumberPicker extends LinearLayout {
         mLongPressUpdateInterval = intervalMillis;
     }
 
+    /**
+     * Sets the time a call of the formatter may take. A formatter exceeding it is
+     * reported to the {@link OnSlowFormatListener} and, if a fallback is set with
+     * {@link #setSlowFormatFallback(Executor, String)}, no longer called while scrolling.
+     *
+     * @param budgetMillis The budget in milliseconds, zero to not time the formatter.
+     */
+    public void setFormatBudget(long budgetMillis) {
+        if (budgetMillis < 0) {
+            throw new IllegalArgumentException("budgetMillis must be >= 0");
+        }
+        mFormatBudgetNanos = budgetMillis * 1000000L;
+        mFormatterSlow = false;
+    }
+
+    /**
+     * Sets the listener to be notified when the formatter exceeds its budget.
+     *
+     * @param onSlowFormatListener The listener, or null to remove it.
+     * @see #setFormatBudget(long)
+     */
+    public void setOnSlowFormatListener(OnSlowFormatListener onSlowFormatListener) {
+        mOnSlowFormatListener = onSlowFormatListener;
+    }
+
+    /**
+     * Sets the fallback used once the formatter has exceeded its budget: the labels are
+     * then formatted on the given <code>executor</code>, as well as the text of the
+     * current value, and the <code>placeholder</code> is drawn until they are done. The
+     * formatter must be safe to call from the threads of the executor. A formatter set with
+     * {@link #setAsyncFormatter(Formatter, Executor, String)} keeps its own executor.
+     *
+     * @param executor    The executor, or null to keep formatting on the main thread.
+     * @param placeholder The label drawn meanwhile, null to draw nothing.
+     * @see #setFormatBudget(long)
+     */
+    public void setSlowFormatFallback(Executor executor, String placeholder) {
+        mSlowFormatExecutor = executor;
+        mSlowFormatPlaceholder = placeholder != null ? placeholder : "";
+        initializeSelectorWheelIndices();
+        invalidate();
+    }
+
+    /**
+     * Set the formatter producing labels from expensive sources. Unlike
+     * {@link #setFormatter(Formatter)} the formatter is never called on the main thread:
+     * the labels of the values about to be shown are requested on the given
+     * <code>executor</code>, and the last known label or the <code>placeholder</code> is
+     * drawn until they arrive.
+     * <p>
+     * Note: If you have provided alternative values for the values this
+     * formatter is never invoked.
+     * </p>
+     *
+     * @param formatter   The formatter, safe to call from the threads of the executor.
+     * @param executor    The executor calling the formatter. It must accept the labels as
+     *                    long as the formatter is set, a rejected label throws an
+     *                    IllegalStateException.
+     * @param placeholder The label drawn meanwhile, null to draw nothing.
+     * @see #invalidateLabels()
+     */
+    public void setAsyncFormatter(Formatter formatter, Executor executor, String placeholder) {
+        if (formatter == null || executor == null) {
+            throw new IllegalArgumentException("formatter and executor must not be null");
+        }
+        mAsyncFormatExecutor = executor;
+        mAsyncFormatPlaceholder = placeholder != null ? placeholder : "";
+        setFormatterInternal(formatter, true);
+    }
+
+    /**
+     * Sets the number of bytes the labels may take once rendered into bitmaps. Rendered
+     * labels are drawn as bitmaps instead of text, which is cheaper for heavy typefaces,
+     * strike-through or underline on low-end devices. Single line labels only, a rendered
+     * label takes one byte per pixel.
+     *
+     * @param maxBytes The max size of the rendered labels, zero to draw the labels as text.
+     */
+    public void setLabelBitmapCacheSize(int maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must be >= 0");
+        }
+        if (mLabelBitmapCache != null) {
+            if (mLabelBitmapCache.maxSize() == maxBytes) {
+                return;
+            }
+            mLabelBitmapCache.evictAll();
+        }
+        mLabelBitmapCache = maxBytes > 0 ? new LabelBitmapCache(maxBytes) : null;
+        invalidate();
+    }
+
+    /**
+     * Discards the cached labels so that they are formatted again, e.g. after the state a
+     * formatter depends on has changed. The labels of an asynchronous formatter stay
+     * visible until the new ones arrive.
+     */
+    public void invalidateLabels() {
+        initializeSelectorWheelIndices();
+        updateInputTextView();
+        invalidate();
+    }
+
     /**
      * Returns the value of the picker.
      *
      * @return The value.
      */
     public int getValue() {
-        return mValue;
+        return mWheel.getValue();
     }
 
     /**
@@ -1606,7 +2292,7 @@ public class NumberPicker extends LinearLayout {
      * @return The min value
      */
     public int getMinValue() {
-        return mMinValue;
+        return mWheel.getMinValue();
     }
 
     /**
@@ -1623,12 +2309,7 @@ public class NumberPicker extends LinearLayout {
 //        if (minValue < 0) {
 //            throw new IllegalArgumentException("minValue must be >= 0");
 //        }
-        mMinValue = minValue;
-        if (mMinValue > mValue) {
-            mValue = mMinValue;
-        }
-
-        updateWrapSelectorWheel();
+        mWheel.setMinValue(minValue);
         initializeSelectorWheelIndices();
         updateInputTextView();
         tryComputeMaxWidth();
@@ -1641,7 +2322,7 @@ public class NumberPicker extends LinearLayout {
      * @return The max value.
      */
     public int getMaxValue() {
-        return mMaxValue;
+        return mWheel.getMaxValue();
     }
 
     /**
@@ -1658,12 +2339,7 @@ public class NumberPicker extends LinearLayout {
         if (maxValue < 0) {
             throw new IllegalArgumentException("maxValue must be >= 0");
         }
-        mMaxValue = maxValue;
-        if (mMaxValue < mValue) {
-            mValue = mMaxValue;
-        }
-
-        updateWrapSelectorWheel();
+        mWheel.setMaxValue(maxValue);
         initializeSelectorWheelIndices();
         updateInputTextView();
         tryComputeMaxWidth();
@@ -1705,42 +2381,225 @@ public class NumberPicker extends LinearLayout {
         tryComputeMaxWidth();
     }
 
-    private float getFadingEdgeStrength(boolean isHorizontalMode) {
-        return isHorizontalMode && mFadingEdgeEnabled ? mFadingEdgeStrength : 0;
+    /**
+     * Rebinds the picker to a new range and value, keeping the current displayed values.
+     *
+     * @param minValue The min value inclusive.
+     * @param maxValue The max value inclusive.
+     * @param value    The current value.
+     * @see #rebind(int, int, int, String[])
+     */
+    public void rebind(int minValue, int maxValue, int value) {
+        rebind(minValue, maxValue, value, mDisplayedValues);
     }
 
-    @Override
-    protected float getTopFadingEdgeStrength() {
-        return getFadingEdgeStrength(!isHorizontalMode());
+    /**
+     * Rebinds the picker to a new range, value and displayed values in one pass. This is
+     * meant for pickers recycled in list rows: running flings and adjustments are stopped,
+     * pending long press callbacks are removed, a scroll listener is told that the wheel
+     * is idle again, no value change is notified and the layout is only requested if the
+     * measured width would change.
+     *
+     * @param minValue        The min value inclusive.
+     * @param maxValue        The max value inclusive.
+     * @param value           The current value.
+     * @param displayedValues The displayed values, or <code>null</code> to format the numbers.
+     */
+    public void rebind(int minValue, int maxValue, int value, String[] displayedValues) {
+        if (maxValue < 0) {
+            throw new IllegalArgumentException("maxValue must be >= 0");
+        }
+
+        removeAllCallbacks();
+        mFlingScroller.forceFinished(true);
+        mAdjustScroller.forceFinished(true);
+        mPreviousScrollerX = 0;
+        mPreviousScrollerY = 0;
+        if (mVelocityTracker != null) {
+            mVelocityTracker.recycle();
+            mVelocityTracker = null;
+        }
+        // The interrupted gesture is not measured, but the scroll listener is told that
+        // the previous binding stopped scrolling.
+        mMeasuringGesture = false;
+        onScrollStateChange(OnScrollListener.SCROLL_STATE_IDLE);
+        mWheel.setStepSize(1);
+
+        // The max width only depends on the displayed values or the digits of the max value.
+        final boolean sameShape = displayedValues == null
+                ? mDisplayedValues == null
+                        && getNumberOfDigits(maxValue) == getNumberOfDigits(mWheel.getMaxValue())
+                : Arrays.equals(displayedValues, mDisplayedValues);
+
+        if (mDisplayedValues != displayedValues) {
+            mDisplayedValues = displayedValues;
+            if (mDisplayedValues != null) {
+                mSelectedText.setRawInputType(InputType.TYPE_TEXT_FLAG_MULTI_LINE
+                        | InputType.TYPE_TEXT_FLAG_NO_SUGGESTIONS);
+            } else {
+                mSelectedText.setRawInputType(InputType.TYPE_CLASS_NUMBER);
+            }
+        }
+        mWheel.setRange(minValue, maxValue, value);
+        initializeSelectorWheelIndices();
+        mWheel.resetOffset();
+        updateInputTextView();
+        updateAccessibilityDescription();
+
+        if (!sameShape) {
+            final int previousMaxWidth = mMaxWidth;
+            tryComputeMaxWidth();
+            if (previousMaxWidth != mMaxWidth) {
+                requestLayout();
+            }
+        }
+        invalidate();
     }
 
-    @Override
-    protected float getBottomFadingEdgeStrength() {
-        return getFadingEdgeStrength(!isHorizontalMode());
+    /**
+     * @return The alpha, from 0 to 255, of an item centered at the given
+     * <code>position</code> along the scroll axis.
+     */
+    private int getFadingEdgeAlpha(float position) {
+        final int[] alphas = mFadingEdgeAlphas;
+        if (alphas == null) {
+            return 255;
+        }
+        final int size = isHorizontalMode() ? getWidth() : getHeight();
+        final int distance = (int) Math.min(position, size - position);
+        if (distance >= alphas.length) {
+            return 255;
+        }
+        return alphas[Math.max(distance, 0)];
     }
 
     @Override
-    protected float getLeftFadingEdgeStrength() {
-        return getFadingEdgeStrength(isHorizontalMode());
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        updateFrameBudget();
     }
 
-    @Override
-    protected float getRightFadingEdgeStrength() {
-        return getFadingEdgeStrength(isHorizontalMode());
+    private void updateFrameBudget() {
+        float refreshRate = DEFAULT_REFRESH_RATE;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1 && getDisplay() != null
+                && getDisplay().getRefreshRate() >= 1) {
+            refreshRate = getDisplay().getRefreshRate();
+        }
+        mFrameBudgetNanos = (long) (1e9 / refreshRate);
     }
 
     @Override
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
         removeAllCallbacks();
+        finishScrollers();
+        if (mPrefetchLabelsCommand != null) {
+            mPrefetchLabelsCommand.cancel();
+        }
+        if (mLabelBitmapCache != null) {
+            mLabelBitmapCache.evictAll();
+        }
     }
 
-    @CallSuper
     @Override
-    protected void drawableStateChanged() {
-        super.drawableStateChanged();
-        if (mDividerDrawable != null && mDividerDrawable.isStateful()
-                && mDividerDrawable.setState(getDrawableState())) {
+    public void onVisibilityAggregated(boolean isVisible) {
+        super.onVisibilityAggregated(isVisible);
+        setShownOnScreen(isVisible);
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+            setShownOnScreen(isShown() && getWindowVisibility() == VISIBLE);
+        }
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+            setShownOnScreen(isShown() && visibility == VISIBLE);
+        }
+    }
+
+    /**
+     * Stops all the work of the picker once it cannot be seen, the scrollers are moved to
+     * their final positions and the pending commands are removed.
+     */
+    private void setShownOnScreen(boolean shown) {
+        if (mShownOnScreen == shown) {
+            return;
+        }
+        mShownOnScreen = shown;
+        if (!shown) {
+            removeAllCallbacks();
+            if (mPrefetchLabelsCommand != null) {
+                mPrefetchLabelsCommand.cancel();
+            }
+            finishScrollers();
+        }
+    }
+
+    /**
+     * Moves the wheel at once to where the running scrollers would stop and snaps it to
+     * the closest element, leaving the picker idle.
+     */
+    private void finishScrollers() {
+        if (mFlingScroller.isFinished() && mAdjustScroller.isFinished()
+                && mScrollState == OnScrollListener.SCROLL_STATE_IDLE) {
+            return;
+        }
+        // only one scroller runs at a time, the fling one first, see computeScroll()
+        final int amountToScroll = !mFlingScroller.isFinished()
+                ? getRemainingScroll(mFlingScroller) : getRemainingScroll(mAdjustScroller);
+        mFlingScroller.forceFinished(true);
+        mAdjustScroller.forceFinished(true);
+        mPreviousScrollerX = 0;
+        mPreviousScrollerY = 0;
+        if (amountToScroll != 0) {
+            scrollByAxis(amountToScroll);
+        }
+        final int delta = mWheel.getAdjustmentDelta();
+        if (delta != 0) {
+            scrollByAxis(delta);
+        }
+        updateInputTextView();
+        onScrollStateChange(OnScrollListener.SCROLL_STATE_IDLE);
+        invalidate();
+    }
+
+    /**
+     * @return The distance a running <code>scroller</code> has still to scroll the wheel.
+     */
+    private int getRemainingScroll(Scroller scroller) {
+        if (scroller.isFinished()) {
+            return 0;
+        }
+        if (isHorizontalMode()) {
+            final int current = mPreviousScrollerX != 0
+                    ? mPreviousScrollerX : scroller.getStartX();
+            return scroller.getFinalX() - current;
+        }
+        final int current = mPreviousScrollerY != 0 ? mPreviousScrollerY : scroller.getStartY();
+        return scroller.getFinalY() - current;
+    }
+
+    private void scrollByAxis(int delta) {
+        if (isHorizontalMode()) {
+            scrollBy(delta, 0);
+        } else {
+            scrollBy(0, delta);
+        }
+    }
+
+    @CallSuper
+    @Override
+    protected void drawableStateChanged() {
+        super.drawableStateChanged();
+        if (mDividerDrawable != null && mDividerDrawable.isStateful()
+                && mDividerDrawable.setState(getDrawableState())) {
+            invalidateIdlePicture();
             invalidateDrawable(mDividerDrawable);
         }
     }
@@ -1756,20 +2615,123 @@ public class NumberPicker extends LinearLayout {
 
     @Override
     protected void onDraw(Canvas canvas) {
+        final AllocationTracker tracker = mAllocationTracker;
+        if (tracker != null) {
+            tracker.onSectionStart(this, AllocationTracker.SECTION_DRAW);
+        }
+        final boolean traced = beginTraceSection(TRACE_DRAW);
+        if (mMeasuringGesture) {
+            final long startNanos = System.nanoTime();
+            drawSelectorWheel(canvas);
+            onFrameDrawn(startNanos, System.nanoTime());
+        } else if (isIdlePictureUsable(canvas)) {
+            drawIdlePicture(canvas);
+        } else {
+            mIdlePictureValid = false;
+            drawSelectorWheel(canvas);
+        }
+        endTraceSection(traced);
+        if (tracker != null) {
+            tracker.onSectionEnd(this, AllocationTracker.SECTION_DRAW);
+        }
+    }
+
+    /**
+     * Drops what is derived from the text styles, it is rebuilt on the next draw.
+     */
+    private void onTextStyleChanged() {
+        mMagnifierPaints = null;
+        invalidateIdlePicture();
+    }
+
+    /**
+     * @return True if the wheel is at rest and can be drawn from a recorded picture.
+     * Hardware canvases are left out: they only call onDraw() after an invalidate(),
+     * which drops the picture anyway, and they keep the recorded display list themselves.
+     */
+    private boolean isIdlePictureUsable(Canvas canvas) {
+        return mScrollState == OnScrollListener.SCROLL_STATE_IDLE
+                && mFlingScroller.isFinished() && mAdjustScroller.isFinished()
+                && mPendingLabels.size() == 0
+                && !canvas.isHardwareAccelerated();
+    }
+
+    /**
+     * Draws the idle wheel from {@link #mIdlePicture}, recording it first if the wheel
+     * has changed since.
+     */
+    private void drawIdlePicture(Canvas canvas) {
+        final int offset = mWheel.getCurrentOffset();
+        final int selectorIndex = mWheel.getMiddleSelectorIndex();
+        final int width = getWidth();
+        final int height = getHeight();
+        final boolean showWheel = !mHideWheelUntilFocused || hasFocus();
+        final boolean showInput = mSelectedText.getVisibility() == VISIBLE;
+        if (!mIdlePictureValid || mIdlePictureOffset != offset
+                || mIdlePictureSelectorIndex != selectorIndex
+                || mIdlePictureWidth != width || mIdlePictureHeight != height
+                || mIdlePictureShowWheel != showWheel || mIdlePictureShowInput != showInput) {
+            drawSelectorWheel(mIdlePicture.beginRecording(width, height));
+            mIdlePicture.endRecording();
+            mIdlePictureValid = true;
+            mIdlePictureOffset = offset;
+            mIdlePictureSelectorIndex = selectorIndex;
+            mIdlePictureWidth = width;
+            mIdlePictureHeight = height;
+            mIdlePictureShowWheel = showWheel;
+            mIdlePictureShowInput = showInput;
+        }
+        canvas.drawPicture(mIdlePicture);
+    }
+
+    /**
+     * Drops the recorded idle wheel, it is recorded again on the next draw.
+     */
+    private void invalidateIdlePicture() {
+        mIdlePictureValid = false;
+    }
+
+    @Override
+    public void invalidate() {
+        invalidateIdlePicture();
+        super.invalidate();
+    }
+
+    /**
+     * Records a frame of the measured gesture. Only frames of a fling come at the frame
+     * rate, so only those count as late when drawn more than a frame after the previous.
+     */
+    private void onFrameDrawn(long startNanos, long endNanos) {
+        final GestureMetrics metrics = mGestureMetrics;
+        final long drawNanos = endNanos - startNanos;
+        metrics.mFrameCount++;
+        metrics.mDrawNanos += drawNanos;
+        metrics.mMaxDrawNanos = Math.max(metrics.mMaxDrawNanos, drawNanos);
+        if (drawNanos > mFrameBudgetNanos) {
+            metrics.mSlowFrameCount++;
+        }
+        if (mScrollState == OnScrollListener.SCROLL_STATE_FLING && mLastFrameNanos != 0
+                && startNanos - mLastFrameNanos > mFrameBudgetNanos * 3 / 2) {
+            metrics.mLateFrameCount++;
+        }
+        mLastFrameNanos = startNanos;
+    }
+
+    private void drawSelectorWheel(Canvas canvas) {
         // save canvas
         canvas.save();
 
         final boolean showSelectorWheel = !mHideWheelUntilFocused || hasFocus();
         float x, y;
         if (isHorizontalMode()) {
-            x = mCurrentScrollOffset;
+            x = mWheel.getCurrentOffset();
             y = mSelectedText.getBaseline() + mSelectedText.getTop();
             if (mRealWheelItemCount < DEFAULT_WHEEL_ITEM_COUNT) {
                 canvas.clipRect(mLeftDividerLeft, 0, mRightDividerRight, getBottom());
             }
         } else {
             x = (getRight() - getLeft()) / 2f;
-            y = mCurrentScrollOffset;
+            y = mWheel.getCurrentOffset();
             if (mRealWheelItemCount < DEFAULT_WHEEL_ITEM_COUNT) {
                 canvas.clipRect(0, mTopDividerTop, getRight(), mBottomDividerBottom);
             }
@@ -1777,26 +2739,50 @@ public class NumberPicker extends LinearLayout {
 
         // draw the selector wheel
         int[] selectorIndices = getSelectorIndices();
+        final int middleItemIndex = mWheel.getMiddleItemIndex();
+        if (mMagnifierEnabled) {
+            ensureMagnifierPaints();
+        }
         for (int i = 0; i < selectorIndices.length; i++) {
-            if (i == mWheelMiddleItemIndex) {
-                mSelectorWheelPaint.setTextAlign(Paint.Align.values()[mSelectedTextAlign]);
-                mSelectorWheelPaint.setTextSize(mSelectedTextSize);
-                mSelectorWheelPaint.setColor(mSelectedTextColor);
-                mSelectorWheelPaint.setStrikeThruText(mSelectedTextStrikeThru);
-                mSelectorWheelPaint.setUnderlineText(mSelectedTextUnderline);
-                mSelectorWheelPaint.setTypeface(mSelectedTypeface);
+            final float position = isHorizontalMode() ? x : y;
+            final Paint paint;
+            final float paintCenterY;
+            if (mMagnifierEnabled) {
+                final int step = getMagnifierStep(position);
+                paint = mMagnifierPaints[step];
+                paint.setColor(mMagnifierColors[step]);
+                paintCenterY = mMagnifierCenterYs[step];
             } else {
-                mSelectorWheelPaint.setTextAlign(Paint.Align.values()[mTextAlign]);
-                mSelectorWheelPaint.setTextSize(mTextSize);
-                mSelectorWheelPaint.setColor(mTextColor);
-                mSelectorWheelPaint.setStrikeThruText(mTextStrikeThru);
-                mSelectorWheelPaint.setUnderlineText(mTextUnderline);
-                mSelectorWheelPaint.setTypeface(mTypeface);
+                paint = mSelectorWheelPaint;
+                if (i == middleItemIndex) {
+                    paint.setTextAlign(PAINT_ALIGNS[mSelectedTextAlign]);
+                    paint.setTextSize(mSelectedTextSize);
+                    paint.setColor(mSelectedTextColor);
+                    paint.setStrikeThruText(mSelectedTextStrikeThru);
+                    paint.setUnderlineText(mSelectedTextUnderline);
+                    paint.setTypeface(mSelectedTypeface);
+                } else {
+                    paint.setTextAlign(PAINT_ALIGNS[mTextAlign]);
+                    paint.setTextSize(mTextSize);
+                    paint.setColor(mTextColor);
+                    paint.setStrikeThruText(mTextStrikeThru);
+                    paint.setUnderlineText(mTextUnderline);
+                    paint.setTypeface(mTypeface);
+                }
+                paint.getFontMetrics(mFontMetrics);
+                paintCenterY = getPaintCenterY(mFontMetrics);
+            }
+            final int fadingEdgeAlpha = getFadingEdgeAlpha(position);
+            if (fadingEdgeAlpha < 255) {
+                paint.setAlpha(paint.getAlpha() * fadingEdgeAlpha / 255);
             }
 
             int selectorIndex = selectorIndices[isAscendingOrder()
                     ? i : selectorIndices.length - i - 1];
             String scrollSelectorValue = mSelectorIndexToStringCache.get(selectorIndex);
+            if (scrollSelectorValue == null && mPendingLabels.indexOfKey(selectorIndex) >= 0) {
+                scrollSelectorValue = getPendingLabel(selectorIndex);
+            }
             if (scrollSelectorValue == null) {
                 continue;
             }
@@ -1805,25 +2791,25 @@ public class NumberPicker extends LinearLayout {
             // item. Otherwise, if the user starts editing the text via the
             // IME he may see a dimmed version of the old value intermixed
             // with the new one.
-            if ((showSelectorWheel && i != mWheelMiddleItemIndex)
-                    || (i == mWheelMiddleItemIndex && mSelectedText.getVisibility() != VISIBLE)) {
+            if ((showSelectorWheel && i != middleItemIndex)
+                    || (i == middleItemIndex && mSelectedText.getVisibility() != VISIBLE)) {
                 float textY = y;
                 if (!isHorizontalMode()) {
-                    textY += getPaintCenterY(mSelectorWheelPaint.getFontMetrics());
+                    textY += paintCenterY;
                 }
 
                 int xOffset = 0;
                 int yOffset = 0;
 
-                if (i != mWheelMiddleItemIndex && mItemSpacing != 0) {
+                if (i != middleItemIndex && mItemSpacing != 0) {
                     if (isHorizontalMode()) {
-                        if (i > mWheelMiddleItemIndex) {
+                        if (i > middleItemIndex) {
                             xOffset = mItemSpacing;
                         } else {
                             xOffset = -mItemSpacing;
                         }
                     } else {
-                        if (i > mWheelMiddleItemIndex) {
+                        if (i > middleItemIndex) {
                             yOffset = mItemSpacing;
                         } else {
                             yOffset = -mItemSpacing;
@@ -1831,13 +2817,18 @@ public class NumberPicker extends LinearLayout {
                     }
                 }
 
-                drawText(scrollSelectorValue, x + xOffset, textY + yOffset, mSelectorWheelPaint, canvas);
+                if (!mWheelCurved) {
+                    drawText(scrollSelectorValue, x + xOffset, textY + yOffset, paint, canvas);
+                } else if (beginCurvedItem(canvas, paint, position, x + xOffset, y + yOffset)) {
+                    drawText(scrollSelectorValue, x + xOffset, textY + yOffset, paint, canvas);
+                    canvas.restore();
+                }
             }
 
             if (isHorizontalMode()) {
-                x += mSelectorElementSize;
+                x += mWheel.getElementSize();
             } else {
-                y += mSelectorElementSize;
+                y += mWheel.getElementSize();
             }
         }
 
@@ -1846,14 +2837,173 @@ public class NumberPicker extends LinearLayout {
 
         // draw the dividers
         if (showSelectorWheel && mDividerDrawable != null) {
-            if (isHorizontalMode())
-                drawHorizontalDividers(canvas);
-            else
-                drawVerticalDividers(canvas);
+            drawDividers(canvas);
+        }
+    }
+
+    private void drawDividers(Canvas canvas) {
+        for (int i = 0; i < mDividerCount; i++) {
+            final Rect bounds = mDividerBounds[i];
+            if (mDividerSolid) {
+                canvas.drawRect(bounds, mDividerPaint);
+            } else {
+                mDividerDrawable.setBounds(bounds);
+                mDividerDrawable.draw(canvas);
+            }
+        }
+    }
+
+    /**
+     * Transforms the canvas and the paint for the item centered at <code>position</code>
+     * to appear on a cylinder, the canvas must be restored once the item is drawn.
+     *
+     * @param paint    The paint of the item.
+     * @param position The position of the item along the scroll axis on the flat wheel.
+     * @param centerX  The horizontal center of the item.
+     * @param centerY  The vertical center of the item.
+     * @return False if the item is on the back of the cylinder and is not drawn.
+     */
+    private boolean beginCurvedItem(Canvas canvas, Paint paint, float position,
+                                    float centerX, float centerY) {
+        if (mCurveOffsets == null) {
+            return false;
+        }
+        final float distance = position - mSelectorCenter;
+        final int slot = (int) Math.abs(distance);
+        if (slot >= mCurveOffsets.length) {
+            return false;
+        }
+        final float projected = distance < 0 ? -mCurveOffsets[slot] : mCurveOffsets[slot];
+        final float scale = mCurveScales[slot];
+        final float compression = mCurveCompressions[slot];
+        canvas.save();
+        if (isHorizontalMode()) {
+            canvas.translate(projected - distance, 0);
+            canvas.scale(scale * compression, scale, centerX, centerY);
+        } else {
+            canvas.translate(0, projected - distance);
+            canvas.scale(scale, scale * compression, centerX, centerY);
+        }
+        paint.setAlpha(paint.getAlpha() * mCurveAlphas[slot] / 255);
+        return true;
+    }
+
+    /**
+     * @return The index of the magnifier paint of the item centered at
+     * <code>position</code> along the scroll axis.
+     */
+    private int getMagnifierStep(float position) {
+        final int[] steps = mMagnifierSteps;
+        if (steps == null) {
+            return MAGNIFIER_STEPS - 1;
+        }
+        final int distance = (int) Math.abs(position - mSelectorCenter);
+        return distance < steps.length ? steps[distance] : MAGNIFIER_STEPS - 1;
+    }
+
+    /**
+     * Maps the distance from the middle item to a magnifier paint, the style changes over
+     * the size of one element.
+     */
+    private void updateMagnifierSteps() {
+        final int elementSize = mWheel.getElementSize();
+        if (!mMagnifierEnabled || elementSize <= 0) {
+            return;
+        }
+        if (mMagnifierSteps != null && mMagnifierSteps.length == elementSize) {
+            return;
+        }
+        final int[] steps = new int[elementSize];
+        for (int distance = 0; distance < elementSize; distance++) {
+            steps[distance] = Math.round((MAGNIFIER_STEPS - 1) * (float) distance / elementSize);
+        }
+        mMagnifierSteps = steps;
+    }
+
+    /**
+     * Builds the magnifier paints, interpolating the size and the color from the selected
+     * text to the other text. The other attributes switch halfway.
+     */
+    private void ensureMagnifierPaints() {
+        if (mMagnifierPaints != null) {
+            return;
+        }
+        final Paint[] paints = new Paint[MAGNIFIER_STEPS];
+        final int[] colors = new int[MAGNIFIER_STEPS];
+        final float[] centerYs = new float[MAGNIFIER_STEPS];
+        for (int step = 0; step < MAGNIFIER_STEPS; step++) {
+            final float fraction = (float) step / (MAGNIFIER_STEPS - 1);
+            final boolean selected = fraction < 0.5f;
+            final Paint paint = new Paint(mSelectorWheelPaint);
+            paint.setTextAlign(PAINT_ALIGNS[selected ? mSelectedTextAlign : mTextAlign]);
+            paint.setTextSize(mSelectedTextSize + (mTextSize - mSelectedTextSize) * fraction);
+            paint.setStrikeThruText(selected ? mSelectedTextStrikeThru : mTextStrikeThru);
+            paint.setUnderlineText(selected ? mSelectedTextUnderline : mTextUnderline);
+            paint.setTypeface(selected ? mSelectedTypeface : mTypeface);
+            paint.getFontMetrics(mFontMetrics);
+            paints[step] = paint;
+            colors[step] = interpolateColor(mSelectedTextColor, mTextColor, fraction);
+            centerYs[step] = getPaintCenterY(mFontMetrics);
+        }
+        mMagnifierColors = colors;
+        mMagnifierCenterYs = centerYs;
+        mMagnifierPaints = paints;
+    }
+
+    private static int interpolateColor(int from, int to, float fraction) {
+        final int a = (int) (Color.alpha(from) + (Color.alpha(to) - Color.alpha(from)) * fraction);
+        final int r = (int) (Color.red(from) + (Color.red(to) - Color.red(from)) * fraction);
+        final int g = (int) (Color.green(from) + (Color.green(to) - Color.green(from)) * fraction);
+        final int b = (int) (Color.blue(from) + (Color.blue(to) - Color.blue(from)) * fraction);
+        return Color.argb(a, r, g, b);
+    }
+
+    /**
+     * Computes the transforms of the curved wheel, once per element size and wheel item
+     * count. The wheel is laid on a cylinder whose quarter turn is half of the flat wheel,
+     * so drawing needs no trigonometry.
+     */
+    private void updateCurveTransforms() {
+        final int elementSize = mWheel.getElementSize();
+        if (!mWheelCurved || elementSize <= 0) {
+            return;
+        }
+        final int itemCount = getSelectorIndices().length;
+        if (mCurveOffsets != null && elementSize == mCurveElementSize
+                && itemCount == mCurveItemCount) {
+            return;
+        }
+        mCurveElementSize = elementSize;
+        mCurveItemCount = itemCount;
+        final float radius = elementSize * itemCount / (float) Math.PI;
+        final int length = (int) Math.ceil(radius * Math.PI / 2);
+        mCurveOffsets = new float[length];
+        mCurveScales = new float[length];
+        mCurveCompressions = new float[length];
+        mCurveAlphas = new int[length];
+        for (int slot = 0; slot < length; slot++) {
+            final double angle = slot / radius;
+            final float cos = (float) Math.cos(angle);
+            mCurveOffsets[slot] = (float) (radius * Math.sin(angle));
+            mCurveCompressions[slot] = cos;
+            mCurveScales[slot] = 1 - (1 - MIN_CURVE_SCALE) * (1 - cos);
+            mCurveAlphas[slot] = Math.round(255 * (MIN_CURVE_ALPHA + (1 - MIN_CURVE_ALPHA) * cos));
+        }
+    }
+
+    /**
+     * Computes the bounds of the dividers, they only change with the layout and the
+     * divider settings.
+     */
+    private void updateDividerBounds() {
+        if (isHorizontalMode()) {
+            updateHorizontalDividerBounds();
+        } else {
+            updateVerticalDividerBounds();
         }
     }
 
-    private void drawHorizontalDividers(Canvas canvas) {
+    private void updateHorizontalDividerBounds() {
         switch (mDividerType) {
             case SIDE_LINES:
                 final int top;
@@ -1865,16 +3015,15 @@ public class NumberPicker extends LinearLayout {
                     top = 0;
                     bottom = getBottom();
                 }
-                // draw the left divider
+                // the left divider
                 final int leftOfLeftDivider = mLeftDividerLeft;
                 final int rightOfLeftDivider = leftOfLeftDivider + mDividerThickness;
-                mDividerDrawable.setBounds(leftOfLeftDivider, top, rightOfLeftDivider, bottom);
-                mDividerDrawable.draw(canvas);
-                // draw the right divider
+                mDividerBounds[0].set(leftOfLeftDivider, top, rightOfLeftDivider, bottom);
+                // the right divider
                 final int rightOfRightDivider = mRightDividerRight;
                 final int leftOfRightDivider = rightOfRightDivider - mDividerThickness;
-                mDividerDrawable.setBounds(leftOfRightDivider, top, rightOfRightDivider, bottom);
-                mDividerDrawable.draw(canvas);
+                mDividerBounds[1].set(leftOfRightDivider, top, rightOfRightDivider, bottom);
+                mDividerCount = 2;
                 break;
             case UNDERLINE:
                 final int left;
@@ -1888,18 +3037,18 @@ public class NumberPicker extends LinearLayout {
                 }
                 final int bottomOfUnderlineDivider = mBottomDividerBottom;
                 final int topOfUnderlineDivider = bottomOfUnderlineDivider - mDividerThickness;
-                mDividerDrawable.setBounds(
+                mDividerBounds[0].set(
                         left,
                         topOfUnderlineDivider,
                         right,
                         bottomOfUnderlineDivider
                 );
-                mDividerDrawable.draw(canvas);
+                mDividerCount = 1;
                 break;
         }
     }
 
-    private void drawVerticalDividers(Canvas canvas) {
+    private void updateVerticalDividerBounds() {
         final int left;
         final int right;
         if (mDividerLength > 0 && mDividerLength <= mMaxWidth) {
@@ -1911,48 +3060,65 @@ public class NumberPicker extends LinearLayout {
         }
         switch (mDividerType) {
             case SIDE_LINES:
-                // draw the top divider
+                // the top divider
                 final int topOfTopDivider = mTopDividerTop;
                 final int bottomOfTopDivider = topOfTopDivider + mDividerThickness;
-                mDividerDrawable.setBounds(left, topOfTopDivider, right, bottomOfTopDivider);
-                mDividerDrawable.draw(canvas);
-                // draw the bottom divider
+                mDividerBounds[0].set(left, topOfTopDivider, right, bottomOfTopDivider);
+                // the bottom divider
                 final int bottomOfBottomDivider = mBottomDividerBottom;
                 final int topOfBottomDivider = bottomOfBottomDivider - mDividerThickness;
-                mDividerDrawable.setBounds(
+                mDividerBounds[1].set(
                         left,
                         topOfBottomDivider,
                         right,
                         bottomOfBottomDivider);
-                mDividerDrawable.draw(canvas);
+                mDividerCount = 2;
                 break;
             case UNDERLINE:
                 final int bottomOfUnderlineDivider = mBottomDividerBottom;
                 final int topOfUnderlineDivider = bottomOfUnderlineDivider - mDividerThickness;
-                mDividerDrawable.setBounds(
+                mDividerBounds[0].set(
                         left,
                         topOfUnderlineDivider,
                         right,
                         bottomOfUnderlineDivider
                 );
-                mDividerDrawable.draw(canvas);
+                mDividerCount = 1;
                 break;
         }
     }
 
     private void drawText(String text, float x, float y, Paint paint, Canvas canvas) {
-        if (text.contains("\n")) {
-            final String[] lines = text.split("\n");
-            final float height = Math.abs(paint.descent() + paint.ascent())
-                    * mLineSpacingMultiplier;
-            final float diff = (lines.length - 1) * height / 2;
-            y -= diff;
-            for (String line : lines) {
-                canvas.drawText(line, x, y, paint);
-                y += height;
+        if (text.indexOf('\n') < 0) {
+            if (mLabelBitmapCache == null
+                    || !mLabelBitmapCache.drawText(canvas, text, x, y, paint)) {
+                canvas.drawText(text, x, y, paint);
             }
-        } else {
-            canvas.drawText(text, x, y, paint);
+            return;
+        }
+        // trailing line breaks do not make lines, as with String#split
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) == '\n') {
+            end--;
+        }
+        int lineCount = 1;
+        for (int i = text.indexOf('\n'); i >= 0 && i < end; i = text.indexOf('\n', i + 1)) {
+            lineCount++;
+        }
+        final float height = Math.abs(paint.descent() + paint.ascent())
+                * mLineSpacingMultiplier;
+        final float diff = (lineCount - 1) * height / 2;
+        y -= diff;
+        // draw the lines in place, splitting the text would allocate on every frame
+        int lineStart = 0;
+        while (lineStart < end) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0 || lineEnd > end) {
+                lineEnd = end;
+            }
+            canvas.drawText(text, lineStart, lineEnd, x, y, paint);
+            y += height;
+            lineStart = lineEnd + 1;
         }
     }
 
@@ -1961,8 +3127,9 @@ public class NumberPicker extends LinearLayout {
         super.onInitializeAccessibilityEvent(event);
         event.setClassName(NumberPicker.class.getName());
         event.setScrollable(isScrollerEnabled());
-        final int scroll = (mMinValue + mValue) * mSelectorElementSize;
-        final int maxScroll = (mMaxValue - mMinValue) * mSelectorElementSize;
+        final int elementSize = mWheel.getElementSize();
+        final int scroll = (mWheel.getMinValue() + mWheel.getValue()) * elementSize;
+        final int maxScroll = (mWheel.getMaxValue() - mWheel.getMinValue()) * elementSize;
         if (isHorizontalMode()) {
             event.setScrollX(scroll);
             event.setMaxScrollX(maxScroll);
@@ -1972,6 +3139,17 @@ public class NumberPicker extends LinearLayout {
         }
     }
 
+    @Override
+    public AccessibilityNodeProvider getAccessibilityNodeProvider() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) {
+            return super.getAccessibilityNodeProvider();
+        }
+        if (mAccessibilityNodeProvider == null) {
+            mAccessibilityNodeProvider = new AccessibilityNodeProviderImpl();
+        }
+        return mAccessibilityNodeProvider;
+    }
+
     /**
      * Makes a measure spec that tries greedily to use the max value.
      *
@@ -2057,17 +3235,23 @@ public class NumberPicker extends LinearLayout {
      * these indices.
      */
     private void initializeSelectorWheelIndices() {
-        mSelectorIndexToStringCache.clear();
-        int[] selectorIndices = getSelectorIndices();
-        int current = getValue();
-        for (int i = 0; i < selectorIndices.length; i++) {
-            int selectorIndex = current + (i - mWheelMiddleItemIndex);
-            if (mWrapSelectorWheel) {
-                selectorIndex = getWrappedSelectorIndex(selectorIndex);
+        if (isFormatOffThread()) {
+            // keep the known labels around until the new ones are formatted
+            final SparseArray<String> cache = mSelectorIndexToStringCache;
+            for (int i = 0; i < cache.size(); i++) {
+                mStaleLabels.put(cache.keyAt(i), cache.valueAt(i));
             }
-            selectorIndices[i] = selectorIndex;
-            ensureCachedScrollSelectorValue(selectorIndices[i]);
+            if (mStaleLabels.size() > SELECTOR_VALUE_CACHE_SIZE) {
+                mStaleLabels.clear();
+            }
+        } else {
+            mStaleLabels.clear();
         }
+        mSelectorIndexToStringCache.clear();
+        mPendingLabels.clear();
+        mLabelGeneration++;
+        mWheel.initializeSelectorIndices();
+        invalidateIdlePicture();
     }
 
     /**
@@ -2077,18 +3261,21 @@ public class NumberPicker extends LinearLayout {
      * @param notifyChange Whether to notify if the current value changed.
      */
     private void setValueInternal(int current, boolean notifyChange) {
-        if (mValue == current) {
+        if (mWheel.getValue() == current) {
             return;
         }
+        final boolean traced = beginTraceSection(TRACE_SET_VALUE);
         // Wrap around the values if we go past the start or end
-        if (mWrapSelectorWheel) {
-            current = getWrappedSelectorIndex(current);
-        } else {
-            current = Math.max(current, mMinValue);
-            current = Math.min(current, mMaxValue);
+        current = mWheel.normalizeValue(current);
+        int previous = mWheel.getValue();
+        mWheel.setValue(current);
+        if (mMeasuringGesture) {
+            mGestureMetrics.mValuesTraversed++;
+        }
+        // The labels only depend on the selector index, keep them while scrolling
+        if (mSelectorIndexToStringCache.size() > SELECTOR_VALUE_CACHE_SIZE) {
+            mSelectorIndexToStringCache.clear();
         }
-        int previous = mValue;
-        mValue = current;
         // If we're flinging, we'll update the text view at the end when it becomes visible
         if (mScrollState != OnScrollListener.SCROLL_STATE_FLING) {
             updateInputTextView();
@@ -2096,9 +3283,10 @@ public class NumberPicker extends LinearLayout {
         if (notifyChange) {
             notifyChange(previous, current);
         }
-        initializeSelectorWheelIndices();
+        mWheel.initializeSelectorIndices();
         updateAccessibilityDescription();
-        invalidate();
+        invalidateWheel();
+        endTraceSection(traced);
     }
 
     /**
@@ -2109,7 +3297,17 @@ public class NumberPicker extends LinearLayout {
         if (!mAccessibilityDescriptionEnabled) {
             return;
         }
-
+        // Only describe settled values, every intermediate value of a fling would
+        // otherwise dispatch an accessibility event.
+        if (mScrollState != OnScrollListener.SCROLL_STATE_IDLE
+                || !mFlingScroller.isFinished() || !mAdjustScroller.isFinished()) {
+            return;
+        }
+        final int value = mWheel.getValue();
+        if (mAccessibilityDescriptionValue == value && getContentDescription() != null) {
+            return;
+        }
+        mAccessibilityDescriptionValue = value;
         this.setContentDescription(String.valueOf(getValue()));
     }
 
@@ -2133,7 +3331,7 @@ public class NumberPicker extends LinearLayout {
      * @param position The wheel position to scroll to.
      */
     public void smoothScrollToPosition(int position) {
-        final int currentPosition = getSelectorIndices()[mWheelMiddleItemIndex];
+        final int currentPosition = getSelectorIndices()[mWheel.getMiddleItemIndex()];
         if (currentPosition == position) {
             return;
         }
@@ -2141,13 +3339,23 @@ public class NumberPicker extends LinearLayout {
     }
 
     /**
-     * Starts a smooth scroll
+     * Starts a smooth scroll. Only the last steps, as many as the wheel shows items, are
+     * animated, the values before are skipped at once so that the scroll takes the same
+     * time and work for any distance.
      *
      * @param increment True to increment, false to decrement.
      * @param steps     The steps to scroll.
      */
     public void smoothScroll(boolean increment, int steps) {
-        final int diffSteps = (increment ? -mSelectorElementSize : mSelectorElementSize) * steps;
+        if (steps > mWheelItemCount) {
+            final int skippedSteps = steps - mWheelItemCount;
+            final boolean increasing = increment == isAscendingOrder();
+            setValueInternal(mWheel.getValue() + (increasing ? skippedSteps : -skippedSteps),
+                    true);
+            steps = mWheelItemCount;
+        }
+        final int elementSize = mWheel.getElementSize();
+        final int diffSteps = (increment ? -elementSize : elementSize) * steps;
         if (isHorizontalMode()) {
             mPreviousScrollerX = 0;
             mFlingScroller.startScroll(0, 0, diffSteps, 0, SNAP_SCROLL_DURATION);
@@ -2155,39 +3363,74 @@ public class NumberPicker extends LinearLayout {
             mPreviousScrollerY = 0;
             mFlingScroller.startScroll(0, 0, 0, diffSteps, SNAP_SCROLL_DURATION);
         }
-        invalidate();
+        if (!mShownOnScreen) {
+            finishScrollers();
+            return;
+        }
+        invalidateWheel();
     }
 
     private void initializeSelectorWheel() {
+        final boolean traced = beginTraceSection(TRACE_INITIALIZE_SELECTOR_WHEEL);
         initializeSelectorWheelIndices();
         int[] selectorIndices = getSelectorIndices();
         int totalTextSize = (int) ((selectorIndices.length - 1) * mTextSize + mSelectedTextSize);
         float textGapCount = selectorIndices.length;
+        final int middleItemIndex = mWheel.getMiddleItemIndex();
         if (isHorizontalMode()) {
             float totalTextGapWidth = (getRight() - getLeft()) - totalTextSize;
             mSelectorTextGapWidth = (int) (totalTextGapWidth / textGapCount);
-            mSelectorElementSize = (int) getMaxTextSize() + mSelectorTextGapWidth;
-            mInitialScrollOffset = (int) (mSelectedTextCenterX - mSelectorElementSize * mWheelMiddleItemIndex);
+            final int elementSize = (int) getMaxTextSize() + mSelectorTextGapWidth;
+            mWheel.setGeometry(elementSize,
+                    (int) (mSelectedTextCenterX - elementSize * middleItemIndex));
         } else {
             float totalTextGapHeight = (getBottom() - getTop()) - totalTextSize;
             mSelectorTextGapHeight = (int) (totalTextGapHeight / textGapCount);
-            mSelectorElementSize = (int) getMaxTextSize() + mSelectorTextGapHeight;
-            mInitialScrollOffset = (int) (mSelectedTextCenterY - mSelectorElementSize * mWheelMiddleItemIndex);
+            final int elementSize = (int) getMaxTextSize() + mSelectorTextGapHeight;
+            mWheel.setGeometry(elementSize,
+                    (int) (mSelectedTextCenterY - elementSize * middleItemIndex));
         }
-        mCurrentScrollOffset = mInitialScrollOffset;
+        mSelectorCenter = mWheel.getInitialOffset()
+                + middleItemIndex * mWheel.getElementSize();
+        updateCurveTransforms();
+        updateMagnifierSteps();
         updateInputTextView();
+        endTraceSection(traced);
     }
 
+    /**
+     * The items are faded by their own alpha instead of the fading edges of {@link View},
+     * which draw through an off-screen layer every frame.
+     */
     private void initializeFadingEdges() {
+        setHorizontalFadingEdgeEnabled(false);
+        setVerticalFadingEdgeEnabled(false);
         if (isHorizontalMode()) {
-            setHorizontalFadingEdgeEnabled(true);
-            setVerticalFadingEdgeEnabled(false);
-            setFadingEdgeLength((getRight() - getLeft() - (int) mTextSize) / 2);
+            mFadingEdgeLength = (getRight() - getLeft() - (int) mTextSize) / 2;
         } else {
-            setHorizontalFadingEdgeEnabled(false);
-            setVerticalFadingEdgeEnabled(true);
-            setFadingEdgeLength((getBottom() - getTop() - (int) mTextSize) / 2);
+            mFadingEdgeLength = (getBottom() - getTop() - (int) mTextSize) / 2;
+        }
+        updateFadingEdgeAlphas();
+    }
+
+    /**
+     * Computes the alpha of the items within the fading edges, matching the linear
+     * gradient of {@link View} fading edges at the center of the items: like View, the
+     * strength scales the length of the fade, which goes from transparent at the edge to
+     * opaque at <code>strength * length</code>.
+     */
+    private void updateFadingEdgeAlphas() {
+        final int length = mFadingEdgeLength;
+        if (!mFadingEdgeEnabled || mFadingEdgeStrength <= 0 || length <= 0) {
+            mFadingEdgeAlphas = null;
+            return;
         }
+        final float fadeLength = Math.min(mFadingEdgeStrength, 1f) * length;
+        final int[] alphas = new int[length];
+        for (int distance = 0; distance < length; distance++) {
+            alphas[distance] = Math.round(255 * Math.min(1f, distance / fadeLength));
+        }
+        mFadingEdgeAlphas = alphas;
     }
 
     /**
@@ -2201,6 +3444,7 @@ public class NumberPicker extends LinearLayout {
         } else if (mScrollState != OnScrollListener.SCROLL_STATE_TOUCH_SCROLL) {
             updateInputTextView();
         }
+        updateAccessibilityDescription();
     }
 
     /**
@@ -2210,16 +3454,56 @@ public class NumberPicker extends LinearLayout {
         if (mScrollState == scrollState) {
             return;
         }
+        final int previousScrollState = mScrollState;
         mScrollState = scrollState;
+        if (previousScrollState == OnScrollListener.SCROLL_STATE_IDLE) {
+            // a gesture starts from a touch event, outside of a frame
+            refreshTraceEnabled(false);
+        }
+        if (scrollState != OnScrollListener.SCROLL_STATE_FLING) {
+            updateScrollStepSize(0);
+        }
+        if (mTraceEnabled) {
+            TraceCompat.setCounter(TRACE_SCROLL_STATE, scrollState);
+        }
         if (mOnScrollListener != null) {
             mOnScrollListener.onScrollStateChange(this, scrollState);
         }
+        if (scrollState == OnScrollListener.SCROLL_STATE_IDLE) {
+            updateAccessibilityDescription();
+            if (mAccessibilityNodeProvider != null) {
+                mAccessibilityNodeProvider.onWheelSettled();
+            }
+            if (mMeasuringGesture) {
+                reportGestureMetrics();
+            }
+        } else if (previousScrollState == OnScrollListener.SCROLL_STATE_IDLE
+                && mOnMetricsListener != null) {
+            mGestureMetrics.reset();
+            mLastFrameNanos = 0;
+            mMeasuringGesture = true;
+        }
+    }
+
+    private void reportGestureMetrics() {
+        mMeasuringGesture = false;
+        final GestureMetrics metrics = mGestureMetrics;
+        if (metrics.mFlingStartNanos != 0) {
+            metrics.mFlingDurationNanos = System.nanoTime() - metrics.mFlingStartNanos;
+        }
+        if (mOnMetricsListener != null) {
+            mOnMetricsListener.onGestureMetrics(this, metrics);
+        }
     }
 
     /**
      * Flings the selector with the given <code>velocity</code>.
      */
     private void fling(int velocity) {
+        if (mMeasuringGesture) {
+            mGestureMetrics.mFlingVelocity = velocity;
+            mGestureMetrics.mFlingStartNanos = System.nanoTime();
+        }
         if (isHorizontalMode()) {
             mPreviousScrollerX = 0;
             if (velocity > 0) {
@@ -2236,77 +3520,53 @@ public class NumberPicker extends LinearLayout {
             }
         }
 
-        invalidate();
-    }
-
-    /**
-     * @return The wrapped index <code>selectorIndex</code> value.
-     */
-    private int getWrappedSelectorIndex(int selectorIndex) {
-        if (selectorIndex > mMaxValue) {
-            return mMinValue + (selectorIndex - mMaxValue) % (mMaxValue - mMinValue) - 1;
-        } else if (selectorIndex < mMinValue) {
-            return mMaxValue - (mMinValue - selectorIndex) % (mMaxValue - mMinValue) + 1;
-        }
-        return selectorIndex;
+        invalidateWheel();
     }
 
     private int[] getSelectorIndices() {
-        return mSelectorIndices;
+        return mWheel.getSelectorIndices();
     }
 
     /**
-     * Increments the <code>selectorIndices</code> whose string representations
-     * will be displayed in the selector.
-     */
-    private void incrementSelectorIndices(int[] selectorIndices) {
-        for (int i = 0; i < selectorIndices.length - 1; i++) {
-            selectorIndices[i] = selectorIndices[i + 1];
-        }
-        int nextScrollSelectorIndex = selectorIndices[selectorIndices.length - 2] + 1;
-        if (mWrapSelectorWheel && nextScrollSelectorIndex > mMaxValue) {
-            nextScrollSelectorIndex = mMinValue;
-        }
-        selectorIndices[selectorIndices.length - 1] = nextScrollSelectorIndex;
-        ensureCachedScrollSelectorValue(nextScrollSelectorIndex);
-    }
-
-    /**
-     * Decrements the <code>selectorIndices</code> whose string representations
-     * will be displayed in the selector.
+     * Ensures we have a cached string representation of the given <code>
+     * selectorIndex</code> to avoid multiple instantiations of the same string.
      */
-    private void decrementSelectorIndices(int[] selectorIndices) {
-        for (int i = selectorIndices.length - 1; i > 0; i--) {
-            selectorIndices[i] = selectorIndices[i - 1];
-        }
-        int nextScrollSelectorIndex = selectorIndices[1] - 1;
-        if (mWrapSelectorWheel && nextScrollSelectorIndex < mMinValue) {
-            nextScrollSelectorIndex = mMaxValue;
-        }
-        selectorIndices[0] = nextScrollSelectorIndex;
-        ensureCachedScrollSelectorValue(nextScrollSelectorIndex);
+    private void ensureCachedScrollSelectorValue(int selectorIndex) {
+        ensureCachedScrollSelectorValue(selectorIndex, false);
     }
 
     /**
      * Ensures we have a cached string representation of the given <code>
      * selectorIndex</code> to avoid multiple instantiations of the same string.
+     *
+     * @param prefetch Whether the label is cached ahead of the wheel, such lookups do not
+     *                 count as hits or misses of the label cache.
      */
-    private void ensureCachedScrollSelectorValue(int selectorIndex) {
+    private void ensureCachedScrollSelectorValue(int selectorIndex, boolean prefetch) {
         SparseArray<String> cache = mSelectorIndexToStringCache;
         String scrollSelectorValue = cache.get(selectorIndex);
         if (scrollSelectorValue != null) {
+            if (mMeasuringGesture && !prefetch) {
+                mGestureMetrics.mLabelCacheHits++;
+            }
             return;
         }
-        if (selectorIndex < mMinValue || selectorIndex > mMaxValue) {
+        if (mMeasuringGesture && !prefetch) {
+            mGestureMetrics.mLabelCacheMisses++;
+        }
+        if (selectorIndex < mWheel.getMinValue() || selectorIndex > mWheel.getMaxValue()) {
             scrollSelectorValue = "";
         } else {
             if (mDisplayedValues != null) {
-                int displayedValueIndex = selectorIndex - mMinValue;
+                int displayedValueIndex = selectorIndex - mWheel.getMinValue();
                 if (displayedValueIndex >= mDisplayedValues.length) {
                     cache.remove(selectorIndex);
                     return;
                 }
                 scrollSelectorValue = mDisplayedValues[displayedValueIndex];
+            } else if (isFormatOffThread()) {
+                formatNumberAsync(selectorIndex);
+                return;
             } else {
                 scrollSelectorValue = formatNumber(selectorIndex);
             }
@@ -2315,7 +3575,106 @@ public class NumberPicker extends LinearLayout {
     }
 
     private String formatNumber(int value) {
-        return (mFormatter != null) ? mFormatter.format(value) : formatNumberWithLocale(value);
+        if (mFormatter == null) {
+            return formatNumberWithLocale(value);
+        }
+        final boolean traced = beginTraceSection(TRACE_FORMAT);
+        final long startNanos = mFormatBudgetNanos > 0 ? System.nanoTime() : 0;
+        final String formatted = mFormatter.format(value);
+        if (mFormatBudgetNanos > 0) {
+            final long durationNanos = System.nanoTime() - startNanos;
+            if (durationNanos > mFormatBudgetNanos) {
+                mFormatterSlow = true;
+                if (mOnSlowFormatListener != null) {
+                    mOnSlowFormatListener.onSlowFormat(this, value, durationNanos);
+                }
+            }
+        }
+        endTraceSection(traced);
+        return formatted;
+    }
+
+    /**
+     * Formats the label of the given <code>selectorIndex</code> on the
+     * executor of the asynchronous formatter or of the slow format fallback, the
+     * placeholder is drawn until it is done.
+     */
+    private void formatNumberAsync(int selectorIndex) {
+        if (mPendingLabels.indexOfKey(selectorIndex) >= 0) {
+            return;
+        }
+        mPendingLabels.put(selectorIndex, mLabelGeneration);
+        try {
+            (isFormatAsync() ? mAsyncFormatExecutor : mSlowFormatExecutor).execute(
+                    new FormatLabelCommand(mFormatter, selectorIndex, mLabelGeneration));
+        } catch (RejectedExecutionException e) {
+            mPendingLabels.delete(selectorIndex);
+            if (mFormatAsync) {
+                // an asynchronous formatter must never be called on the main thread
+                throw new IllegalStateException(
+                        "The executor of the asynchronous formatter rejected a label", e);
+            }
+            // the fallback executor is shut down, the formatter is safe to call inline
+            mSelectorIndexToStringCache.put(selectorIndex, formatNumber(selectorIndex));
+        }
+    }
+
+    /**
+     * Callback invoked on the main thread once a label is formatted off-thread.
+     */
+    private void onLabelFormatted(FormatLabelCommand command) {
+        final int selectorIndex = command.mSelectorIndex;
+        final int index = mPendingLabels.indexOfKey(selectorIndex);
+        // a stale label does not clear the request of the current generation
+        if (index >= 0 && mPendingLabels.valueAt(index) == command.mGeneration) {
+            mPendingLabels.removeAt(index);
+        }
+        if (command.mGeneration != mLabelGeneration) {
+            return;
+        }
+        mStaleLabels.delete(selectorIndex);
+        mSelectorIndexToStringCache.put(selectorIndex, command.mLabel);
+        if (selectorIndex == mWheel.getValue()
+                && mScrollState != OnScrollListener.SCROLL_STATE_FLING) {
+            updateInputTextView();
+        }
+        // only a label on the wheel changes what is drawn
+        final int[] selectorIndices = getSelectorIndices();
+        for (int i = 0; i < selectorIndices.length; i++) {
+            if (selectorIndices[i] == selectorIndex) {
+                invalidateWheel();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return Whether the labels are currently formatted off-thread, either always by the
+     * asynchronous formatter or since the formatter has exceeded its budget.
+     */
+    private boolean isFormatOffThread() {
+        return isFormatAsync() || (mFormatterSlow && mSlowFormatExecutor != null
+                && mFormatter != null && mDisplayedValues == null);
+    }
+
+    /**
+     * @return Whether every label is formatted on the {@link #mAsyncFormatExecutor}.
+     */
+    private boolean isFormatAsync() {
+        return mFormatAsync && mAsyncFormatExecutor != null && mFormatter != null
+                && mDisplayedValues == null;
+    }
+
+    /**
+     * @return The text drawn for a label being formatted, the last known label or the
+     * placeholder.
+     */
+    private String getPendingLabel(int selectorIndex) {
+        final String staleLabel = mStaleLabels.get(selectorIndex);
+        if (staleLabel != null) {
+            return staleLabel;
+        }
+        return isFormatAsync() ? mAsyncFormatPlaceholder : mSlowFormatPlaceholder;
     }
 
     /**
@@ -2330,10 +3689,22 @@ public class NumberPicker extends LinearLayout {
          * find the correct value in the displayed values for the current
          * number.
          */
-        String text = (mDisplayedValues == null) ? formatNumber(mValue)
-                : mDisplayedValues[mValue - mMinValue];
-        if (TextUtils.isEmpty(text)) {
-            return;
+        String text;
+        if (isFormatOffThread()) {
+            // never wait for the formatter, the text is updated once the label is formatted
+            final int value = mWheel.getValue();
+            text = mSelectorIndexToStringCache.get(value);
+            if (text == null) {
+                formatNumberAsync(value);
+                // like the wheel, show the pending label rather than the previous value
+                text = getPendingLabel(value);
+            }
+        } else {
+            text = (mDisplayedValues == null) ? formatNumber(mWheel.getValue())
+                    : mDisplayedValues[mWheel.getValue() - mWheel.getMinValue()];
+            if (TextUtils.isEmpty(text)) {
+                return;
+            }
         }
 
         CharSequence beforeText = mSelectedText.getText();
@@ -2399,36 +3770,11 @@ public class NumberPicker extends LinearLayout {
         }
     }
 
-    /**
-     * @return The selected index given its displayed <code>value</code>.
-     */
-    private int getSelectedPos(String value) {
-        if (mDisplayedValues == null) {
-            try {
-                return Integer.parseInt(value);
-            } catch (NumberFormatException e) {
-                // Ignore as if it's not a number we don't care
-            }
-        } else {
-            for (int i = 0; i < mDisplayedValues.length; i++) {
-                // Don't force the user to type in jan when ja will do
-                value = value.toLowerCase();
-                if (mDisplayedValues[i].toLowerCase().startsWith(value)) {
-                    return mMinValue + i;
-                }
-            }
-
-            /*
-             * The user might have typed in a number into the month field i.e.
-             * 10 instead of OCT so support that too.
-             */
-            try {
-                return Integer.parseInt(value);
-            } catch (NumberFormatException e) {
-                // Ignore as if it's not a number we don't care
-            }
-        }
-        return mMinValue;
+    /**
+     * @return The selected index given its displayed <code>value</code>.
+     */
+    private int getSelectedPos(String value) {
+        return LabelFormat.parseTypedValue(mDisplayedValues, mWheel.getMinValue(), value);
     }
 
     /**
@@ -2514,7 +3860,8 @@ public class NumberPicker extends LinearLayout {
                  * And prevent multiple-"0" that exceeds the length of upper
                  * bound number.
                  */
-                if (val > mMaxValue || result.length() > String.valueOf(mMaxValue).length()) {
+                final int maxValue = mWheel.getMaxValue();
+                if (val > maxValue || result.length() > String.valueOf(maxValue).length()) {
                     return "";
                 } else {
                     return filtered;
@@ -2545,14 +3892,10 @@ public class NumberPicker extends LinearLayout {
      */
     private void ensureScrollWheelAdjusted() {
         // adjust to the closest value
-        int delta = mInitialScrollOffset - mCurrentScrollOffset;
+        final int delta = mWheel.getAdjustmentDelta();
         if (delta == 0) {
             return;
         }
-
-        if (Math.abs(delta) > mSelectorElementSize / 2) {
-            delta += (delta > 0) ? -mSelectorElementSize : mSelectorElementSize;
-        }
         if (isHorizontalMode()) {
             mPreviousScrollerX = 0;
             mAdjustScroller.startScroll(0, 0, delta, 0, SELECTOR_ADJUSTMENT_DURATION_MILLIS);
@@ -2560,7 +3903,7 @@ public class NumberPicker extends LinearLayout {
             mPreviousScrollerY = 0;
             mAdjustScroller.startScroll(0, 0, 0, delta, SELECTOR_ADJUSTMENT_DURATION_MILLIS);
         }
-        invalidate();
+        invalidateWheel();
     }
 
     /**
@@ -2605,6 +3948,80 @@ public class NumberPicker extends LinearLayout {
         }
     }
 
+    /**
+     * Command for formatting a label on the format executor and handing it back to the
+     * main thread.
+     */
+    private class FormatLabelCommand implements Runnable {
+
+        private final Formatter mFormatter;
+        private final int mSelectorIndex;
+        private final int mGeneration;
+
+        /**
+         * The formatted label, null until formatted.
+         */
+        private String mLabel;
+
+        FormatLabelCommand(Formatter formatter, int selectorIndex, int generation) {
+            mFormatter = formatter;
+            mSelectorIndex = selectorIndex;
+            mGeneration = generation;
+        }
+
+        @Override
+        public void run() {
+            if (mLabel == null) {
+                String label = null;
+                try {
+                    label = mFormatter.format(mSelectorIndex);
+                } finally {
+                    // hand back even a failed label, so that it is no longer pending
+                    mLabel = label != null ? label : "";
+                    mMainHandler.post(this);
+                }
+            } else {
+                onLabelFormatted(this);
+            }
+        }
+    }
+
+    /**
+     * Command for prefetching labels when the message queue of the main thread is idle.
+     */
+    class PrefetchLabelsCommand implements MessageQueue.IdleHandler {
+        private boolean mIncreasing;
+        private int mCount;
+
+        /**
+         * Whether this handler is currently added to the message queue.
+         */
+        private boolean mScheduled;
+
+        void schedule(boolean increasing, int count) {
+            mIncreasing = increasing;
+            mCount = count;
+            if (!mScheduled) {
+                Looper.myQueue().addIdleHandler(this);
+                mScheduled = true;
+            }
+        }
+
+        void cancel() {
+            if (mScheduled) {
+                Looper.myQueue().removeIdleHandler(this);
+                mScheduled = false;
+            }
+        }
+
+        @Override
+        public boolean queueIdle() {
+            mScheduled = false;
+            prefetchLabels(mIncreasing, mCount);
+            return false;
+        }
+    }
+
     /**
      * Command for changing the current value from a long press by one.
      */
@@ -2622,6 +4039,546 @@ public class NumberPicker extends LinearLayout {
         }
     }
 
+    /**
+     * The performance metrics of one gesture, see {@link OnMetricsListener}.
+     */
+    public static final class GestureMetrics {
+
+        private int mFrameCount;
+        private long mDrawNanos;
+        private long mMaxDrawNanos;
+        private int mSlowFrameCount;
+        private int mLateFrameCount;
+        private int mFlingVelocity;
+        private long mFlingStartNanos;
+        private long mFlingDurationNanos;
+        private long mFlingDistance;
+        private int mValuesTraversed;
+        private int mLabelCacheHits;
+        private int mLabelCacheMisses;
+
+        GestureMetrics() {
+        }
+
+        void reset() {
+            mFrameCount = 0;
+            mDrawNanos = 0;
+            mMaxDrawNanos = 0;
+            mSlowFrameCount = 0;
+            mLateFrameCount = 0;
+            mFlingVelocity = 0;
+            mFlingStartNanos = 0;
+            mFlingDurationNanos = 0;
+            mFlingDistance = 0;
+            mValuesTraversed = 0;
+            mLabelCacheHits = 0;
+            mLabelCacheMisses = 0;
+        }
+
+        /**
+         * @return The number of frames drawn.
+         */
+        public int getFrameCount() {
+            return mFrameCount;
+        }
+
+        /**
+         * @return The total time spent in {@link NumberPicker#onDraw(Canvas)}.
+         */
+        public long getDrawNanos() {
+            return mDrawNanos;
+        }
+
+        /**
+         * @return The longest time spent in {@link NumberPicker#onDraw(Canvas)}.
+         */
+        public long getMaxDrawNanos() {
+            return mMaxDrawNanos;
+        }
+
+        /**
+         * @return The number of frames whose drawing alone took more than a frame.
+         */
+        public int getSlowFrameCount() {
+            return mSlowFrameCount;
+        }
+
+        /**
+         * @return The number of frames of the fling drawn later than expected.
+         */
+        public int getLateFrameCount() {
+            return mLateFrameCount;
+        }
+
+        /**
+         * @return Whether the gesture ended with a fling.
+         */
+        public boolean isFling() {
+            return mFlingStartNanos != 0;
+        }
+
+        /**
+         * @return The start velocity of the fling in pixels per second, zero if none.
+         */
+        public int getFlingVelocity() {
+            return mFlingVelocity;
+        }
+
+        /**
+         * @return The duration of the fling, zero if none.
+         */
+        public long getFlingDurationNanos() {
+            return mFlingDurationNanos;
+        }
+
+        /**
+         * @return The distance in pixels scrolled by the fling, zero if none.
+         */
+        public long getFlingDistance() {
+            return mFlingDistance;
+        }
+
+        /**
+         * @return The number of values the picker went through.
+         */
+        public int getValuesTraversed() {
+            return mValuesTraversed;
+        }
+
+        /**
+         * @return The number of labels found in the cache when they entered the wheel.
+         */
+        public int getLabelCacheHits() {
+            return mLabelCacheHits;
+        }
+
+        /**
+         * @return The number of labels that had to be formatted when they entered the wheel,
+         * labels formatted ahead of the wheel are not counted.
+         */
+        public int getLabelCacheMisses() {
+            return mLabelCacheMisses;
+        }
+    }
+
+    /**
+     * The saved state of this widget. Only the value, the range and a fingerprint of the
+     * displayed values are stored, the labels themselves are provided again by the app.
+     */
+    static class SavedState extends BaseSavedState {
+        int mValue;
+        int mMinValue;
+        int mMaxValue;
+        boolean mWrapSelectorWheelPreferred;
+        int mDisplayedValuesFingerprint;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcel in) {
+            super(in);
+            mValue = in.readInt();
+            mMinValue = in.readInt();
+            mMaxValue = in.readInt();
+            mWrapSelectorWheelPreferred = in.readInt() != 0;
+            mDisplayedValuesFingerprint = in.readInt();
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(mValue);
+            out.writeInt(mMinValue);
+            out.writeInt(mMaxValue);
+            out.writeInt(mWrapSelectorWheelPreferred ? 1 : 0);
+            out.writeInt(mDisplayedValuesFingerprint);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR =
+                new Parcelable.Creator<SavedState>() {
+                    @Override
+                    public SavedState createFromParcel(Parcel in) {
+                        return new SavedState(in);
+                    }
+
+                    @Override
+                    public SavedState[] newArray(int size) {
+                        return new SavedState[size];
+                    }
+                };
+    }
+
+    /**
+     * The attributes of this widget parsed from a style. Instances are immutable once
+     * created so they can be shared by all pickers using the same style.
+     */
+    private static final class ParsedStyle {
+        final int mDefStyle;
+        final Configuration mConfiguration;
+        private final Drawable mDivider;
+        private final Drawable.ConstantState mDividerState;
+        final int mDividerColor;
+        final int mDividerDistance;
+        final int mDividerLength;
+        final int mDividerThickness;
+        final int mDividerType;
+        final int mOrder;
+        final int mOrientation;
+        final float mWidth;
+        final float mHeight;
+        final int mValue;
+        final int mMaxValue;
+        final int mMinValue;
+        final int mSelectedTextAlign;
+        final int mSelectedTextColor;
+        final float mSelectedTextSize;
+        final boolean mSelectedTextStrikeThru;
+        final boolean mSelectedTextUnderline;
+        final Typeface mSelectedTypeface;
+        final int mTextAlign;
+        final int mTextColor;
+        final float mTextSize;
+        final boolean mTextStrikeThru;
+        final boolean mTextUnderline;
+        final Typeface mTypeface;
+        final String mFormatter;
+        final boolean mFadingEdgeEnabled;
+        final float mFadingEdgeStrength;
+        final boolean mScrollerEnabled;
+        final int mWheelItemCount;
+        final float mLineSpacingMultiplier;
+        final int mMaxFlingVelocityCoefficient;
+        final boolean mHideWheelUntilFocused;
+        final boolean mWheelCurved;
+        final boolean mMagnifierEnabled;
+        final boolean mAcceleratedScrollEnabled;
+        final boolean mAccessibilityDescriptionEnabled;
+        final int mItemSpacing;
+        final boolean mWrapSelectorWheel;
+
+        ParsedStyle(Context context, TypedArray attributes, int defStyle) {
+            mDefStyle = defStyle;
+            mConfiguration = new Configuration(context.getResources().getConfiguration());
+
+            final Drawable divider = attributes.getDrawable(R.styleable.NumberPicker_np_divider);
+            mDivider = divider;
+            mDividerState = divider != null ? divider.getConstantState() : null;
+            mDividerColor = attributes.getColor(R.styleable.NumberPicker_np_dividerColor,
+                    DEFAULT_DIVIDER_COLOR);
+
+            final DisplayMetrics displayMetrics = context.getResources().getDisplayMetrics();
+            final int defDividerDistance = (int) TypedValue.applyDimension(
+                    TypedValue.COMPLEX_UNIT_DIP, UNSCALED_DEFAULT_DIVIDER_DISTANCE, displayMetrics);
+            final int defDividerThickness = (int) TypedValue.applyDimension(
+                    TypedValue.COMPLEX_UNIT_DIP, UNSCALED_DEFAULT_DIVIDER_THICKNESS, displayMetrics);
+            final float defTextSize = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP,
+                    DEFAULT_TEXT_SIZE, displayMetrics);
+            mDividerDistance = attributes.getDimensionPixelSize(
+                    R.styleable.NumberPicker_np_dividerDistance, defDividerDistance);
+            mDividerLength = attributes.getDimensionPixelSize(
+                    R.styleable.NumberPicker_np_dividerLength, 0);
+            mDividerThickness = attributes.getDimensionPixelSize(
+                    R.styleable.NumberPicker_np_dividerThickness, defDividerThickness);
+            mDividerType = attributes.getInt(R.styleable.NumberPicker_np_dividerType, SIDE_LINES);
+
+            mOrder = attributes.getInt(R.styleable.NumberPicker_np_order, ASCENDING);
+            mOrientation = attributes.getInt(R.styleable.NumberPicker_np_orientation, VERTICAL);
+
+            mWidth = attributes.getDimensionPixelSize(R.styleable.NumberPicker_np_width,
+                    SIZE_UNSPECIFIED);
+            mHeight = attributes.getDimensionPixelSize(R.styleable.NumberPicker_np_height,
+                    SIZE_UNSPECIFIED);
+
+            mValue = attributes.getInt(R.styleable.NumberPicker_np_value, 0);
+            mMaxValue = attributes.getInt(R.styleable.NumberPicker_np_max, DEFAULT_MAX_VALUE);
+            mMinValue = attributes.getInt(R.styleable.NumberPicker_np_min, DEFAULT_MIN_VALUE);
+
+            mSelectedTextAlign = attributes.getInt(R.styleable.NumberPicker_np_selectedTextAlign,
+                    DEFAULT_TEXT_ALIGN);
+            mSelectedTextColor = attributes.getColor(
+                    R.styleable.NumberPicker_np_selectedTextColor, DEFAULT_TEXT_COLOR);
+            mSelectedTextSize = attributes.getDimension(
+                    R.styleable.NumberPicker_np_selectedTextSize, defTextSize);
+            mSelectedTextStrikeThru = attributes.getBoolean(
+                    R.styleable.NumberPicker_np_selectedTextStrikeThru, false);
+            mSelectedTextUnderline = attributes.getBoolean(
+                    R.styleable.NumberPicker_np_selectedTextUnderline, false);
+            mSelectedTypeface = createTypeface(attributes.getString(
+                    R.styleable.NumberPicker_np_selectedTypeface), Typeface.NORMAL);
+            mTextAlign = attributes.getInt(R.styleable.NumberPicker_np_textAlign,
+                    DEFAULT_TEXT_ALIGN);
+            mTextColor = attributes.getColor(R.styleable.NumberPicker_np_textColor,
+                    DEFAULT_TEXT_COLOR);
+            mTextSize = attributes.getDimension(R.styleable.NumberPicker_np_textSize,
+                    defTextSize);
+            mTextStrikeThru = attributes.getBoolean(
+                    R.styleable.NumberPicker_np_textStrikeThru, false);
+            mTextUnderline = attributes.getBoolean(
+                    R.styleable.NumberPicker_np_textUnderline, false);
+            mTypeface = createTypeface(attributes.getString(
+                    R.styleable.NumberPicker_np_typeface), Typeface.NORMAL);
+            mFormatter = attributes.getString(R.styleable.NumberPicker_np_formatter);
+            mFadingEdgeEnabled = attributes.getBoolean(
+                    R.styleable.NumberPicker_np_fadingEdgeEnabled, true);
+            mFadingEdgeStrength = attributes.getFloat(
+                    R.styleable.NumberPicker_np_fadingEdgeStrength, DEFAULT_FADING_EDGE_STRENGTH);
+            mScrollerEnabled = attributes.getBoolean(
+                    R.styleable.NumberPicker_np_scrollerEnabled, true);
+            mWheelItemCount = attributes.getInt(R.styleable.NumberPicker_np_wheelItemCount,
+                    DEFAULT_WHEEL_ITEM_COUNT);
+            mLineSpacingMultiplier = attributes.getFloat(
+                    R.styleable.NumberPicker_np_lineSpacingMultiplier,
+                    DEFAULT_LINE_SPACING_MULTIPLIER);
+            mMaxFlingVelocityCoefficient = attributes.getInt(
+                    R.styleable.NumberPicker_np_maxFlingVelocityCoefficient,
+                    DEFAULT_MAX_FLING_VELOCITY_COEFFICIENT);
+            mHideWheelUntilFocused = attributes.getBoolean(
+                    R.styleable.NumberPicker_np_hideWheelUntilFocused, false);
+            mWheelCurved = attributes.getBoolean(
+                    R.styleable.NumberPicker_np_wheelCurved, false);
+            mMagnifierEnabled = attributes.getBoolean(
+                    R.styleable.NumberPicker_np_magnifierEnabled, false);
+            mAcceleratedScrollEnabled = attributes.getBoolean(
+                    R.styleable.NumberPicker_np_acceleratedScrollEnabled, false);
+            mAccessibilityDescriptionEnabled = attributes.getBoolean(
+                    R.styleable.NumberPicker_np_accessibilityDescriptionEnabled, true);
+            mItemSpacing = attributes.getDimensionPixelSize(
+                    R.styleable.NumberPicker_np_itemSpacing, 0);
+            mWrapSelectorWheel = attributes.getBoolean(
+                    R.styleable.NumberPicker_np_wrapSelectorWheel, false);
+        }
+
+        /**
+         * @return True if the divider, if any, can be recreated for other pickers.
+         */
+        boolean isCacheable() {
+            return mDivider == null || mDividerState != null;
+        }
+
+        /**
+         * @return A divider drawable for a new picker, or <code>null</code> if none is set.
+         */
+        Drawable newDividerDrawable(Resources resources) {
+            if (mDividerState != null) {
+                return mDividerState.newDrawable(resources);
+            }
+            return mDivider;
+        }
+    }
+
+    /**
+     * Exposes the visible items of the selector wheel as virtual views. The virtual view
+     * id of an item is its position in the wheel, the nodes are only built on request.
+     */
+    @RequiresApi(Build.VERSION_CODES.JELLY_BEAN)
+    class AccessibilityNodeProviderImpl extends AccessibilityNodeProvider {
+
+        /**
+         * The virtual view id of no item.
+         */
+        private static final int UNDEFINED = Integer.MIN_VALUE;
+
+        private final Rect mTempRect = new Rect();
+
+        private final int[] mTempArray = new int[2];
+
+        /**
+         * The virtual view id of the item holding the accessibility focus.
+         */
+        private int mAccessibilityFocusedView = UNDEFINED;
+
+        @Override
+        public AccessibilityNodeInfo createAccessibilityNodeInfo(int virtualViewId) {
+            if (virtualViewId == View.NO_ID) {
+                return createAccessibilityNodeInfoForNumberPicker();
+            }
+            if (!isVirtualViewVisible(virtualViewId)) {
+                return null;
+            }
+            return createAccessibilityNodeInfoForItem(virtualViewId);
+        }
+
+        @Override
+        public boolean performAction(int virtualViewId, int action, Bundle arguments) {
+            if (virtualViewId == View.NO_ID) {
+                switch (action) {
+                    case AccessibilityNodeInfo.ACTION_SCROLL_FORWARD:
+                        if (isEnabled() && canScroll(true)) {
+                            changeValueByOne(true);
+                            return true;
+                        }
+                        return false;
+                    case AccessibilityNodeInfo.ACTION_SCROLL_BACKWARD:
+                        if (isEnabled() && canScroll(false)) {
+                            changeValueByOne(false);
+                            return true;
+                        }
+                        return false;
+                }
+                return performAccessibilityAction(action, arguments);
+            }
+            switch (action) {
+                case AccessibilityNodeInfo.ACTION_ACCESSIBILITY_FOCUS:
+                    if (mAccessibilityFocusedView != virtualViewId
+                            && isVirtualViewVisible(virtualViewId)) {
+                        mAccessibilityFocusedView = virtualViewId;
+                        sendAccessibilityEventForVirtualView(virtualViewId,
+                                AccessibilityEvent.TYPE_VIEW_ACCESSIBILITY_FOCUSED);
+                        invalidateItem(virtualViewId);
+                        return true;
+                    }
+                    return false;
+                case AccessibilityNodeInfo.ACTION_CLEAR_ACCESSIBILITY_FOCUS:
+                    if (mAccessibilityFocusedView == virtualViewId) {
+                        mAccessibilityFocusedView = UNDEFINED;
+                        sendAccessibilityEventForVirtualView(virtualViewId,
+                                AccessibilityEvent.TYPE_VIEW_ACCESSIBILITY_FOCUS_CLEARED);
+                        invalidateItem(virtualViewId);
+                        return true;
+                    }
+                    return false;
+                case AccessibilityNodeInfo.ACTION_CLICK:
+                    if (isEnabled() && isVirtualViewVisible(virtualViewId)
+                            && virtualViewId != mWheel.getMiddleItemIndex()) {
+                        sendAccessibilityEventForVirtualView(virtualViewId,
+                                AccessibilityEvent.TYPE_VIEW_CLICKED);
+                        smoothScroll(virtualViewId > mWheel.getMiddleItemIndex(),
+                                Math.abs(virtualViewId - mWheel.getMiddleItemIndex()));
+                        return true;
+                    }
+                    return false;
+            }
+            return false;
+        }
+
+        /**
+         * Reports the wheel coming to rest: the picker and the focused item, which now
+         * shows another value, have scrolled.
+         */
+        void onWheelSettled() {
+            sendAccessibilityEvent(AccessibilityEvent.TYPE_VIEW_SCROLLED);
+            if (mAccessibilityFocusedView != UNDEFINED) {
+                sendAccessibilityEventForVirtualView(mAccessibilityFocusedView,
+                        AccessibilityEvent.TYPE_VIEW_SCROLLED);
+            }
+        }
+
+        private void sendAccessibilityEventForVirtualView(int virtualViewId, int eventType) {
+            final AccessibilityManager manager = (AccessibilityManager) getContext()
+                    .getSystemService(Context.ACCESSIBILITY_SERVICE);
+            final ViewParent parent = getParent();
+            if (manager == null || !manager.isEnabled() || parent == null) {
+                return;
+            }
+            final AccessibilityEvent event = AccessibilityEvent.obtain(eventType);
+            event.setPackageName(mContext.getPackageName());
+            event.setClassName(NumberPicker.class.getName());
+            event.setSource(NumberPicker.this, virtualViewId);
+            event.setEnabled(isEnabled());
+            if (isVirtualViewVisible(virtualViewId)) {
+                event.getText().add(getItemText(virtualViewId));
+            }
+            parent.requestSendAccessibilityEvent(NumberPicker.this, event);
+        }
+
+        @SuppressWarnings("deprecation") // the rect only matters for software rendering
+        private void invalidateItem(int virtualViewId) {
+            final Rect bounds = mTempRect;
+            getItemBounds(virtualViewId, bounds);
+            NumberPicker.this.invalidate(bounds.left, bounds.top, bounds.right, bounds.bottom);
+        }
+
+        @SuppressWarnings("deprecation") // minSdk 15 needs the int actions
+        private AccessibilityNodeInfo createAccessibilityNodeInfoForNumberPicker() {
+            final AccessibilityNodeInfo info = AccessibilityNodeInfo.obtain(NumberPicker.this);
+            onInitializeAccessibilityNodeInfo(info);
+            for (int i = 0; i < getSelectorIndices().length; i++) {
+                if (isVirtualViewVisible(i)) {
+                    info.addChild(NumberPicker.this, i);
+                }
+            }
+            if (isEnabled()) {
+                if (canScroll(true)) {
+                    info.addAction(AccessibilityNodeInfo.ACTION_SCROLL_FORWARD);
+                }
+                if (canScroll(false)) {
+                    info.addAction(AccessibilityNodeInfo.ACTION_SCROLL_BACKWARD);
+                }
+            }
+            return info;
+        }
+
+        @SuppressWarnings("deprecation") // minSdk 15 needs the int actions and parent bounds
+        private AccessibilityNodeInfo createAccessibilityNodeInfoForItem(int virtualViewId) {
+            final AccessibilityNodeInfo info = AccessibilityNodeInfo.obtain();
+            info.setPackageName(mContext.getPackageName());
+            info.setClassName(NumberPicker.class.getName());
+            info.setSource(NumberPicker.this, virtualViewId);
+            info.setParent(NumberPicker.this);
+            info.setText(getItemText(virtualViewId));
+            info.setEnabled(isEnabled());
+            info.setVisibleToUser(true);
+            if (mAccessibilityFocusedView == virtualViewId) {
+                info.setAccessibilityFocused(true);
+                info.addAction(AccessibilityNodeInfo.ACTION_CLEAR_ACCESSIBILITY_FOCUS);
+            } else {
+                info.setAccessibilityFocused(false);
+                info.addAction(AccessibilityNodeInfo.ACTION_ACCESSIBILITY_FOCUS);
+            }
+            if (virtualViewId == mWheel.getMiddleItemIndex()) {
+                info.setSelected(true);
+            } else if (isEnabled()) {
+                info.setClickable(true);
+                info.addAction(AccessibilityNodeInfo.ACTION_CLICK);
+            }
+
+            final Rect bounds = mTempRect;
+            getItemBounds(virtualViewId, bounds);
+            info.setBoundsInParent(bounds);
+            final int[] locationOnScreen = mTempArray;
+            getLocationOnScreen(locationOnScreen);
+            bounds.offset(locationOnScreen[0], locationOnScreen[1]);
+            info.setBoundsInScreen(bounds);
+            return info;
+        }
+
+        private boolean canScroll(boolean increment) {
+            return isScrollerEnabled() && (getWrapSelectorWheel()
+                    || (increment ? getValue() < getMaxValue() : getValue() > getMinValue()));
+        }
+
+        private boolean isVirtualViewVisible(int virtualViewId) {
+            if (virtualViewId < 0 || virtualViewId >= getSelectorIndices().length) {
+                return false;
+            }
+            if (virtualViewId != mWheel.getMiddleItemIndex()) {
+                if ((mHideWheelUntilFocused && !hasFocus())
+                        || mRealWheelItemCount < DEFAULT_WHEEL_ITEM_COUNT) {
+                    return false;
+                }
+            }
+            return !TextUtils.isEmpty(getItemText(virtualViewId));
+        }
+
+        private String getItemText(int virtualViewId) {
+            final int selectorIndex = getSelectorIndices()[isAscendingOrder()
+                    ? virtualViewId : getSelectorIndices().length - virtualViewId - 1];
+            return mSelectorIndexToStringCache.get(selectorIndex);
+        }
+
+        private void getItemBounds(int virtualViewId, Rect outBounds) {
+            final int center = mWheel.getCurrentOffset() + virtualViewId * mWheel.getElementSize();
+            final int start = center - mWheel.getElementSize() / 2;
+            final int end = start + mWheel.getElementSize();
+            if (isHorizontalMode()) {
+                outBounds.set(start, 0, end, getHeight());
+            } else {
+                outBounds.set(0, start, getWidth(), end);
+            }
+        }
+    }
+
     private String formatNumberWithLocale(int value) {
         return mNumberFormatter.format(value);
     }
@@ -2651,11 +4608,87 @@ public class NumberPicker extends LinearLayout {
         return new Formatter() {
             @Override
             public String format(int i) {
-                return String.format(Locale.getDefault(), formatter, i);
+                return LabelFormat.formatPattern(formatter, i);
             }
         };
     }
 
+    /**
+     * Returns the typeface for the given family name and style, resolving it only once
+     * per process.
+     */
+    private static Typeface createTypeface(String familyName, int style) {
+        if (familyName == null) {
+            return Typeface.create((String) null, style);
+        }
+        final String key = style + familyName;
+        synchronized (sTypefaceCache) {
+            Typeface typeface = sTypefaceCache.get(key);
+            if (typeface == null) {
+                typeface = Typeface.create(familyName, style);
+                sTypefaceCache.put(key, typeface);
+            }
+            return typeface;
+        }
+    }
+
+    /**
+     * Returns the parsed attributes of this widget. Pickers sharing a style and theme, and
+     * not setting any attribute inline, reuse the values parsed by the first of them.
+     */
+    private static ParsedStyle obtainParsedStyle(Context context, AttributeSet attrs,
+                                                 int defStyle) {
+        final Resources.Theme theme = context.getTheme();
+        final Configuration configuration = context.getResources().getConfiguration();
+        final int styleRes = attrs != null ? attrs.getStyleAttribute() : 0;
+        final boolean cacheable = theme != null && !hasInlineAttributes(attrs);
+        if (cacheable) {
+            synchronized (sParsedStyleCache) {
+                final SparseArray<ParsedStyle> styles = sParsedStyleCache.get(theme);
+                final ParsedStyle style = styles != null ? styles.get(styleRes) : null;
+                if (style != null && style.mDefStyle == defStyle
+                        && style.mConfiguration.equals(configuration)) {
+                    return style;
+                }
+            }
+        }
+
+        final TypedArray attributes = context.obtainStyledAttributes(attrs,
+                R.styleable.NumberPicker, defStyle, 0);
+        final ParsedStyle style = new ParsedStyle(context, attributes, defStyle);
+        attributes.recycle();
+
+        if (cacheable && style.isCacheable()) {
+            synchronized (sParsedStyleCache) {
+                SparseArray<ParsedStyle> styles = sParsedStyleCache.get(theme);
+                if (styles == null) {
+                    styles = new SparseArray<>();
+                    sParsedStyleCache.put(theme, styles);
+                }
+                styles.put(styleRes, style);
+            }
+        }
+        return style;
+    }
+
+    /**
+     * @return True if any attribute of this widget is set directly on the element.
+     */
+    private static boolean hasInlineAttributes(AttributeSet attrs) {
+        if (attrs == null) {
+            return false;
+        }
+        for (int i = 0; i < attrs.getAttributeCount(); i++) {
+            final int nameResource = attrs.getAttributeNameResource(i);
+            for (int attr : R.styleable.NumberPicker) {
+                if (attr == nameResource) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     private void setWidthAndHeight() {
         if (isHorizontalMode()) {
             mMinHeight = SIZE_UNSPECIFIED;
@@ -2677,6 +4710,9 @@ public class NumberPicker extends LinearLayout {
     public void setDividerColor(@ColorInt int color) {
         mDividerColor = color;
         mDividerDrawable = new ColorDrawable(color);
+        mDividerSolid = true;
+        mDividerPaint.setColor(color);
+        invalidateIdlePicture();
     }
 
     public void setDividerColorResource(@ColorRes int colorId) {
@@ -2685,6 +4721,7 @@ public class NumberPicker extends LinearLayout {
 
     public void setDividerDistance(int distance) {
         mDividerDistance = distance;
+        onDividerGeometryChanged();
     }
 
     public void setDividerDistanceResource(@DimenRes int dimenId) {
@@ -2693,11 +4730,13 @@ public class NumberPicker extends LinearLayout {
 
     public void setDividerType(@DividerType int dividerType) {
         mDividerType = dividerType;
+        updateDividerBounds();
         invalidate();
     }
 
     public void setDividerThickness(int thickness) {
         mDividerThickness = thickness;
+        onDividerGeometryChanged();
     }
 
     public void setDividerThicknessResource(@DimenRes int dimenId) {
@@ -2712,11 +4751,14 @@ public class NumberPicker extends LinearLayout {
      */
     public void setOrder(@Order int order) {
         mOrder = order;
+        invalidateIdlePicture();
     }
 
     public void setOrientation(@Orientation int orientation) {
         mOrientation = orientation;
+        mSelectorGeometryDirty = true;
         setWidthAndHeight();
+        invalidateIdlePicture();
         requestLayout();
     }
 
@@ -2726,8 +4768,9 @@ public class NumberPicker extends LinearLayout {
         }
         mRealWheelItemCount = count;
         mWheelItemCount = Math.max(count, DEFAULT_WHEEL_ITEM_COUNT);
-        mWheelMiddleItemIndex = mWheelItemCount / 2;
-        mSelectorIndices = new int[mWheelItemCount];
+        mWheel.setWheelItemCount(mWheelItemCount);
+        invalidateIdlePicture();
+        mSelectorGeometryDirty = true;
     }
 
     public void setFormatter(final String formatter) {
@@ -2744,10 +4787,14 @@ public class NumberPicker extends LinearLayout {
 
     public void setFadingEdgeEnabled(boolean fadingEdgeEnabled) {
         mFadingEdgeEnabled = fadingEdgeEnabled;
+        updateFadingEdgeAlphas();
+        invalidate();
     }
 
     public void setFadingEdgeStrength(float strength) {
         mFadingEdgeStrength = strength;
+        updateFadingEdgeAlphas();
+        invalidate();
     }
 
     public void setScrollerEnabled(boolean scrollerEnabled) {
@@ -2756,10 +4803,12 @@ public class NumberPicker extends LinearLayout {
 
     public void setSelectedTextAlign(@Align int align) {
         mSelectedTextAlign = align;
+        onTextStyleChanged();
     }
 
     public void setSelectedTextColor(@ColorInt int color) {
         mSelectedTextColor = color;
+        onTextStyleChanged();
         mSelectedText.setTextColor(mSelectedTextColor);
     }
 
@@ -2769,7 +4818,9 @@ public class NumberPicker extends LinearLayout {
 
     public void setSelectedTextSize(float textSize) {
         mSelectedTextSize = textSize;
+        onTextStyleChanged();
         mSelectedText.setTextSize(pxToSp(mSelectedTextSize));
+        mSelectorGeometryDirty = true;
     }
 
     public void setSelectedTextSize(@DimenRes int dimenId) {
@@ -2778,14 +4829,17 @@ public class NumberPicker extends LinearLayout {
 
     public void setSelectedTextStrikeThru(boolean strikeThruText) {
         mSelectedTextStrikeThru = strikeThruText;
+        onTextStyleChanged();
     }
 
     public void setSelectedTextUnderline(boolean underlineText) {
         mSelectedTextUnderline = underlineText;
+        onTextStyleChanged();
     }
 
     public void setSelectedTypeface(Typeface typeface) {
         mSelectedTypeface = typeface;
+        onTextStyleChanged();
         if (mSelectedTypeface != null) {
             mSelectorWheelPaint.setTypeface(mSelectedTypeface);
         } else if (mTypeface != null) {
@@ -2799,7 +4853,7 @@ public class NumberPicker extends LinearLayout {
         if (TextUtils.isEmpty(string)) {
             return;
         }
-        setSelectedTypeface(Typeface.create(string, style));
+        setSelectedTypeface(createTypeface(string, style));
     }
 
     public void setSelectedTypeface(String string) {
@@ -2816,10 +4870,12 @@ public class NumberPicker extends LinearLayout {
 
     public void setTextAlign(@Align int align) {
         mTextAlign = align;
+        onTextStyleChanged();
     }
 
     public void setTextColor(@ColorInt int color) {
         mTextColor = color;
+        onTextStyleChanged();
         mSelectorWheelPaint.setColor(mTextColor);
     }
 
@@ -2829,7 +4885,9 @@ public class NumberPicker extends LinearLayout {
 
     public void setTextSize(float textSize) {
         mTextSize = textSize;
+        onTextStyleChanged();
         mSelectorWheelPaint.setTextSize(mTextSize);
+        mSelectorGeometryDirty = true;
     }
 
     public void setTextSize(@DimenRes int dimenId) {
@@ -2838,14 +4896,17 @@ public class NumberPicker extends LinearLayout {
 
     public void setTextStrikeThru(boolean strikeThruText) {
         mTextStrikeThru = strikeThruText;
+        onTextStyleChanged();
     }
 
     public void setTextUnderline(boolean underlineText) {
         mTextUnderline = underlineText;
+        onTextStyleChanged();
     }
 
     public void setTypeface(Typeface typeface) {
         mTypeface = typeface;
+        onTextStyleChanged();
         if (mTypeface != null) {
             mSelectedText.setTypeface(mTypeface);
             setSelectedTypeface(mSelectedTypeface);
@@ -2858,7 +4919,7 @@ public class NumberPicker extends LinearLayout {
         if (TextUtils.isEmpty(string)) {
             return;
         }
-        setTypeface(Typeface.create(string, style));
+        setTypeface(createTypeface(string, style));
     }
 
     public void setTypeface(String string) {
@@ -2875,6 +4936,7 @@ public class NumberPicker extends LinearLayout {
 
     public void setLineSpacingMultiplier(float multiplier) {
         mLineSpacingMultiplier = multiplier;
+        invalidateIdlePicture();
     }
 
     public void setMaxFlingVelocityCoefficient(int coefficient) {
@@ -2885,6 +4947,51 @@ public class NumberPicker extends LinearLayout {
 
     public void setItemSpacing(int itemSpacing) {
         mItemSpacing = itemSpacing;
+        invalidateIdlePicture();
+    }
+
+    /**
+     * Sets whether fast flings step over 10, 100 or 1000 values per element, depending on
+     * the velocity, to travel wide ranges. The step goes back to one value as the fling
+     * slows down, so that it still stops on any value.
+     *
+     * @param acceleratedScrollEnabled Whether the accelerated scroll is enabled.
+     */
+    public void setAcceleratedScrollEnabled(boolean acceleratedScrollEnabled) {
+        mAcceleratedScrollEnabled = acceleratedScrollEnabled;
+        if (!acceleratedScrollEnabled) {
+            updateScrollStepSize(0);
+        }
+    }
+
+    /**
+     * Sets whether the text size and color change gradually from the selected text to the
+     * other text over the distance of one item, instead of switching at once.
+     *
+     * @param magnifierEnabled Whether the magnifier is enabled.
+     */
+    public void setMagnifierEnabled(boolean magnifierEnabled) {
+        if (mMagnifierEnabled == magnifierEnabled) {
+            return;
+        }
+        mMagnifierEnabled = magnifierEnabled;
+        updateMagnifierSteps();
+        invalidate();
+    }
+
+    /**
+     * Sets whether the selector wheel is drawn as a cylinder, the items shrinking and
+     * fading as they turn away.
+     *
+     * @param wheelCurved Whether the wheel is curved.
+     */
+    public void setWheelCurved(boolean wheelCurved) {
+        if (mWheelCurved == wheelCurved) {
+            return;
+        }
+        mWheelCurved = wheelCurved;
+        updateCurveTransforms();
+        invalidate();
     }
 
     public boolean isHorizontalMode() {
@@ -2927,6 +5034,18 @@ public class NumberPicker extends LinearLayout {
         return mFormatter;
     }
 
+    public boolean isAcceleratedScrollEnabled() {
+        return mAcceleratedScrollEnabled;
+    }
+
+    public boolean isMagnifierEnabled() {
+        return mMagnifierEnabled;
+    }
+
+    public boolean isWheelCurved() {
+        return mWheelCurved;
+    }
+
     public boolean isFadingEdgeEnabled() {
         return mFadingEdgeEnabled;
     }
@@ -0,0 +1,387 @@
+package com.shawnlin.numberpicker;
+
+/**
+ * The state and the index math of the selector wheel. It knows nothing about the
+ * orientation of the {@link NumberPicker} nor about Android, all offsets are measured
+ * along the scroll axis of the wheel.
+ */
+final class WheelModel {
+
+    /**
+     * Interface to listen for changes of the selector wheel.
+     */
+    interface Callback {
+
+        /**
+         * Called when a selector index becomes part of the wheel.
+         *
+         * @param selectorIndex The selector index.
+         */
+        void onSelectorIndexAdded(int selectorIndex);
+
+        /**
+         * Called when the wheel has moved by one element while scrolling.
+         *
+         * @param middleSelectorIndex The selector index now in the middle of the wheel.
+         */
+        void onSelectorStep(int middleSelectorIndex);
+    }
+
+    private final Callback mCallback;
+
+    /**
+     * Lower value of the range of numbers allowed.
+     */
+    private int mMinValue;
+
+    /**
+     * Upper value of the range of numbers allowed.
+     */
+    private int mMaxValue;
+
+    /**
+     * Current value.
+     */
+    private int mValue;
+
+    /**
+     * Flag whether the selector should wrap around.
+     */
+    private boolean mWrapSelectorWheel;
+
+    /**
+     * User choice on whether the selector wheel should be wrapped.
+     */
+    private boolean mWrapSelectorWheelPreferred = true;
+
+    /**
+     * The selector indices whose value are show by the selector.
+     */
+    private int[] mSelectorIndices;
+
+    /**
+     * The index of the middle selector item.
+     */
+    private int mMiddleItemIndex;
+
+    /**
+     * The difference between the values of two neighbouring elements.
+     */
+    private int mStepSize = 1;
+
+    /**
+     * The size of a selector element (text + gap).
+     */
+    private int mElementSize;
+
+    /**
+     * The initial offset of the scroll selector.
+     */
+    private int mInitialOffset = Integer.MIN_VALUE;
+
+    /**
+     * The current offset of the scroll selector.
+     */
+    private int mCurrentOffset;
+
+    WheelModel(int minValue, int maxValue, int wheelItemCount, Callback callback) {
+        mMinValue = minValue;
+        mMaxValue = maxValue;
+        mCallback = callback;
+        setWheelItemCount(wheelItemCount);
+    }
+
+    int getMinValue() {
+        return mMinValue;
+    }
+
+    /**
+     * Sets the min value, moving the current value into the range if needed.
+     */
+    void setMinValue(int minValue) {
+        mMinValue = minValue;
+        if (mMinValue > mValue) {
+            mValue = mMinValue;
+        }
+        updateWrapSelectorWheel();
+    }
+
+    int getMaxValue() {
+        return mMaxValue;
+    }
+
+    /**
+     * Sets the max value, moving the current value into the range if needed.
+     */
+    void setMaxValue(int maxValue) {
+        mMaxValue = maxValue;
+        if (mMaxValue < mValue) {
+            mValue = mMaxValue;
+        }
+        updateWrapSelectorWheel();
+    }
+
+    /**
+     * Sets the range and the value at once, clamping the value into the range.
+     */
+    void setRange(int minValue, int maxValue, int value) {
+        mMinValue = minValue;
+        mMaxValue = maxValue;
+        mValue = Math.min(Math.max(value, mMinValue), mMaxValue);
+        updateWrapSelectorWheel();
+    }
+
+    int getValue() {
+        return mValue;
+    }
+
+    /**
+     * Sets the current value as is, see {@link #normalizeValue(int)}.
+     */
+    void setValue(int value) {
+        mValue = value;
+    }
+
+    /**
+     * @return The given <code>value</code> wrapped or clamped into the range.
+     */
+    int normalizeValue(int value) {
+        if (mWrapSelectorWheel) {
+            return getWrappedSelectorIndex(value);
+        }
+        return Math.min(Math.max(value, mMinValue), mMaxValue);
+    }
+
+    boolean getWrapSelectorWheel() {
+        return mWrapSelectorWheel;
+    }
+
+    boolean getWrapSelectorWheelPreferred() {
+        return mWrapSelectorWheelPreferred;
+    }
+
+    void setWrapSelectorWheelPreferred(boolean wrapSelectorWheel) {
+        mWrapSelectorWheelPreferred = wrapSelectorWheel;
+        updateWrapSelectorWheel();
+    }
+
+    /**
+     * Whether or not the selector wheel should be wrapped is determined by user choice and
+     * whether the choice is allowed by the range and the number of items of the wheel.
+     */
+    private void updateWrapSelectorWheel() {
+        mWrapSelectorWheel = isWrappingAllowed() && mWrapSelectorWheelPreferred;
+    }
+
+    private boolean isWrappingAllowed() {
+        return mMaxValue - mMinValue >= mSelectorIndices.length - 1;
+    }
+
+    void setWheelItemCount(int count) {
+        mSelectorIndices = new int[count];
+        mMiddleItemIndex = count / 2;
+        updateWrapSelectorWheel();
+    }
+
+    int[] getSelectorIndices() {
+        return mSelectorIndices;
+    }
+
+    int getMiddleItemIndex() {
+        return mMiddleItemIndex;
+    }
+
+    int getMiddleSelectorIndex() {
+        return mSelectorIndices[mMiddleItemIndex];
+    }
+
+    int getStepSize() {
+        return mStepSize;
+    }
+
+    /**
+     * Sets the difference between the values of two neighbouring elements, the selector
+     * indices must be initialized again afterwards.
+     */
+    void setStepSize(int stepSize) {
+        mStepSize = stepSize;
+    }
+
+    int getElementSize() {
+        return mElementSize;
+    }
+
+    int getInitialOffset() {
+        return mInitialOffset;
+    }
+
+    int getCurrentOffset() {
+        return mCurrentOffset;
+    }
+
+    /**
+     * Sets the element size and the initial offset, and moves the wheel to the latter.
+     */
+    void setGeometry(int elementSize, int initialOffset) {
+        mElementSize = elementSize;
+        mInitialOffset = initialOffset;
+        mCurrentOffset = initialOffset;
+    }
+
+    /**
+     * Moves the wheel back to its initial offset.
+     */
+    void resetOffset() {
+        mCurrentOffset = mInitialOffset;
+    }
+
+    /**
+     * @return The wrapped index <code>selectorIndex</code> value.
+     */
+    int getWrappedSelectorIndex(int selectorIndex) {
+        if (selectorIndex > mMaxValue) {
+            return mMinValue + (selectorIndex - mMaxValue) % (mMaxValue - mMinValue) - 1;
+        } else if (selectorIndex < mMinValue) {
+            return mMaxValue - (mMinValue - selectorIndex) % (mMaxValue - mMinValue) + 1;
+        }
+        return selectorIndex;
+    }
+
+    /**
+     * Resets the selector indices around the current value.
+     */
+    void initializeSelectorIndices() {
+        final int[] selectorIndices = mSelectorIndices;
+        for (int i = 0; i < selectorIndices.length; i++) {
+            int selectorIndex = mValue + (i - mMiddleItemIndex) * mStepSize;
+            if (mWrapSelectorWheel) {
+                selectorIndex = getWrappedSelectorIndex(selectorIndex);
+            }
+            selectorIndices[i] = selectorIndex;
+            mCallback.onSelectorIndexAdded(selectorIndex);
+        }
+    }
+
+    /**
+     * Shifts the selector indices so that the next larger index, by the step size, enters
+     * the wheel.
+     */
+    void incrementSelectorIndices() {
+        final int[] selectorIndices = mSelectorIndices;
+        for (int i = 0; i < selectorIndices.length - 1; i++) {
+            selectorIndices[i] = selectorIndices[i + 1];
+        }
+        int nextScrollSelectorIndex = selectorIndices[selectorIndices.length - 2] + mStepSize;
+        if (mWrapSelectorWheel && nextScrollSelectorIndex > mMaxValue) {
+            nextScrollSelectorIndex = getWrappedSelectorIndex(nextScrollSelectorIndex);
+        }
+        selectorIndices[selectorIndices.length - 1] = nextScrollSelectorIndex;
+        mCallback.onSelectorIndexAdded(nextScrollSelectorIndex);
+    }
+
+    /**
+     * Shifts the selector indices so that the next smaller index, by the step size, enters
+     * the wheel.
+     */
+    void decrementSelectorIndices() {
+        final int[] selectorIndices = mSelectorIndices;
+        for (int i = selectorIndices.length - 1; i > 0; i--) {
+            selectorIndices[i] = selectorIndices[i - 1];
+        }
+        int nextScrollSelectorIndex = selectorIndices[1] - mStepSize;
+        if (mWrapSelectorWheel && nextScrollSelectorIndex < mMinValue) {
+            nextScrollSelectorIndex = getWrappedSelectorIndex(nextScrollSelectorIndex);
+        }
+        selectorIndices[0] = nextScrollSelectorIndex;
+        mCallback.onSelectorIndexAdded(nextScrollSelectorIndex);
+    }
+
+    /**
+     * Scrolls the wheel by <code>delta</code> along its axis. Each time the offset passes
+     * <code>gap</code> the indices are shifted by one element and
+     * {@link Callback#onSelectorStep(int)} is invoked.
+     *
+     * @param delta     The distance to scroll.
+     * @param gap       The distance from the initial offset that triggers a step.
+     * @param ascending Whether the values are laid out in ascending order.
+     * @return True if the offset has changed by scrolling.
+     */
+    boolean scrollBy(int delta, int gap, boolean ascending) {
+        final int middleSelectorIndex = mSelectorIndices[mMiddleItemIndex];
+        final int startOffset = mCurrentOffset;
+        if (!mWrapSelectorWheel) {
+            final boolean atStart = ascending
+                    ? middleSelectorIndex <= mMinValue : middleSelectorIndex >= mMaxValue;
+            final boolean atEnd = ascending
+                    ? middleSelectorIndex >= mMaxValue : middleSelectorIndex <= mMinValue;
+            if ((delta > 0 && atStart) || (delta < 0 && atEnd)) {
+                mCurrentOffset = mInitialOffset;
+                return false;
+            }
+        }
+
+        mCurrentOffset += delta;
+
+        while (mCurrentOffset - mInitialOffset > gap) {
+            mCurrentOffset -= mElementSize;
+            if (ascending) {
+                decrementSelectorIndices();
+            } else {
+                incrementSelectorIndices();
+            }
+            mCallback.onSelectorStep(mSelectorIndices[mMiddleItemIndex]);
+            if (!mWrapSelectorWheel && mSelectorIndices[mMiddleItemIndex] < mMinValue) {
+                mCurrentOffset = mInitialOffset;
+            }
+        }
+        while (mCurrentOffset - mInitialOffset < -gap) {
+            mCurrentOffset += mElementSize;
+            if (ascending) {
+                incrementSelectorIndices();
+            } else {
+                decrementSelectorIndices();
+            }
+            mCallback.onSelectorStep(mSelectorIndices[mMiddleItemIndex]);
+            if (!mWrapSelectorWheel && mSelectorIndices[mMiddleItemIndex] > mMaxValue) {
+                mCurrentOffset = mInitialOffset;
+            }
+        }
+
+        return startOffset != mCurrentOffset;
+    }
+
+    /**
+     * Computes the correction needed so that scrolling by <code>amountToScroll</code>
+     * ends with an element exactly in the middle of the wheel.
+     *
+     * @param amountToScroll The distance still to scroll.
+     * @return The distance to add to <code>amountToScroll</code>, zero if none.
+     */
+    int getOvershootAdjustment(int amountToScroll) {
+        final int futureScrollOffset = (mCurrentOffset + amountToScroll) % mElementSize;
+        int overshootAdjustment = mInitialOffset - futureScrollOffset;
+        if (overshootAdjustment != 0 && Math.abs(overshootAdjustment) > mElementSize / 2) {
+            if (overshootAdjustment > 0) {
+                overshootAdjustment -= mElementSize;
+            } else {
+                overshootAdjustment += mElementSize;
+            }
+        }
+        return overshootAdjustment;
+    }
+
+    /**
+     * @return The distance to scroll so that the closest element is in the middle of the
+     * wheel, zero if it already is.
+     */
+    int getAdjustmentDelta() {
+        int delta = mInitialOffset - mCurrentOffset;
+        if (delta == 0) {
+            return 0;
+        }
+        if (Math.abs(delta) > mElementSize / 2) {
+            delta += (delta > 0) ? -mElementSize : mElementSize;
+        }
+        return delta;
+    }
+}
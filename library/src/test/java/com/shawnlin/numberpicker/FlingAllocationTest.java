@@ -0,0 +1,38 @@
+package com.shawnlin.numberpicker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+/**
+ * Guards the frames of a fling against allocations, see
+ * {@link NumberPicker#setAllocationTracker(NumberPicker.AllocationTracker)}. Only
+ * computeScroll, which also runs scrollBy, is checked: drawing is backed by shadows on the
+ * JVM, which allocate on their own.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class FlingAllocationTest {
+
+    @Test
+    public void steadyFlingOverCachedRangeDoesNotAllocate() {
+        // a wrapping range smaller than any fling, so every label is cached by the warm up
+        final GestureHarness harness = new GestureHarness(0, 19, 10, true);
+        harness.fling(-GestureHarness.HEIGHT);
+        harness.fling(GestureHarness.HEIGHT);
+
+        final GestureHarness.GestureTotals totals = harness.fling(-GestureHarness.HEIGHT);
+
+        assumeTrue("allocations are not measurable on this JVM",
+                totals.mMaxFlingFrameBytes >= 0);
+        assertTrue("the fling ran frames", totals.mFlingFrames > 0);
+        assertEquals("bytes allocated by a fling frame", 0, totals.mMaxFlingFrameBytes);
+    }
+}
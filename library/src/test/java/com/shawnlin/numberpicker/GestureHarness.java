@@ -0,0 +1,288 @@
+package com.shawnlin.numberpicker;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.widget.FrameLayout;
+
+import org.robolectric.Robolectric;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives a {@link NumberPicker} attached to a window the way the framework does: touch
+ * events go through {@link NumberPicker#onInterceptTouchEvent(MotionEvent)} and
+ * {@link NumberPicker#onTouchEvent(MotionEvent)}, and every frame advances the paused
+ * looper clock, then runs {@link NumberPicker#computeScroll()} and draws the picker.
+ * The work done by a gesture is summed up in its {@link GestureTotals}.
+ */
+final class GestureHarness implements NumberPicker.AllocationTracker {
+
+    /**
+     * The duration of a frame in milliseconds.
+     */
+    static final int FRAME_MILLIS = 16;
+
+    static final int WIDTH = 200;
+    static final int HEIGHT = 600;
+
+    /**
+     * The frames run after a fling stopped, for the adjust scroller to settle the wheel.
+     */
+    private static final int SETTLE_FRAMES = 800 / FRAME_MILLIS + 2;
+
+    /**
+     * The most frames a fling may take.
+     */
+    private static final int MAX_FLING_FRAMES = 1000;
+
+    /**
+     * The work done by a gesture.
+     */
+    static final class GestureTotals {
+        int mFrames;
+        int mDraws;
+        int mFormats;
+        int mValueChanges;
+        int mScrollStateChanges;
+        int mLayoutRequests;
+
+        /**
+         * The bytes allocated by the picker, -1 if the JVM cannot tell.
+         */
+        long mAllocatedBytes;
+
+        /**
+         * The frames of the fling, which end still flinging.
+         */
+        int mFlingFrames;
+
+        /**
+         * The most bytes allocated by computeScroll in a frame of the fling, -1 if the JVM
+         * cannot tell. The last frame, which stops the fling, is not counted.
+         */
+        long mMaxFlingFrameBytes;
+    }
+
+    /**
+     * A picker counting its layout requests.
+     */
+    static final class CountingNumberPicker extends NumberPicker {
+        int mLayoutRequests;
+
+        CountingNumberPicker(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void requestLayout() {
+            mLayoutRequests++;
+            super.requestLayout();
+        }
+    }
+
+    private final CountingNumberPicker mPicker;
+
+    private final Canvas mCanvas = new Canvas(
+            Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+
+    private final com.sun.management.ThreadMXBean mThreads;
+
+    /**
+     * The bytes allocated by reading the allocated bytes, subtracted from every reading.
+     */
+    private final long mReadingBytes;
+
+    private GestureTotals mTotals = new GestureTotals();
+
+    private int mScrollState = NumberPicker.OnScrollListener.SCROLL_STATE_IDLE;
+
+    /**
+     * The depth of the nested sections, only the outermost one is measured.
+     */
+    private int mSectionDepth;
+    private int mOuterSection;
+    private long mSectionStartBytes;
+
+    GestureHarness(int minValue, int maxValue, int value, boolean wrapSelectorWheel) {
+        final Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        mPicker = new CountingNumberPicker(activity);
+        mPicker.setMinValue(minValue);
+        mPicker.setMaxValue(maxValue);
+        mPicker.setValue(value);
+        mPicker.setWrapSelectorWheel(wrapSelectorWheel);
+        mPicker.setFormatter(new NumberPicker.Formatter() {
+            @Override
+            public String format(int value) {
+                mTotals.mFormats++;
+                return String.valueOf(value);
+            }
+        });
+        mPicker.setOnValueChangedListener(new NumberPicker.OnValueChangeListener() {
+            @Override
+            public void onValueChange(NumberPicker picker, int oldVal, int newVal) {
+                mTotals.mValueChanges++;
+            }
+        });
+        mPicker.setOnScrollListener(new NumberPicker.OnScrollListener() {
+            @Override
+            public void onScrollStateChange(NumberPicker view, int scrollState) {
+                mTotals.mScrollStateChanges++;
+                mScrollState = scrollState;
+            }
+        });
+        mPicker.setAllocationTracker(this);
+        activity.setContentView(mPicker, new FrameLayout.LayoutParams(WIDTH, HEIGHT));
+        ShadowLooper.idleMainLooper();
+
+        final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads)
+                        .isThreadAllocatedMemorySupported()) {
+            mThreads = (com.sun.management.ThreadMXBean) threads;
+            mThreads.setThreadAllocatedMemoryEnabled(true);
+            long readingBytes = Long.MAX_VALUE;
+            for (int i = 0; i < 16; i++) {
+                final long startBytes = allocatedBytes();
+                readingBytes = Math.min(readingBytes, allocatedBytes() - startBytes);
+            }
+            mReadingBytes = readingBytes;
+        } else {
+            mThreads = null;
+            mReadingBytes = 0;
+        }
+    }
+
+    NumberPicker getPicker() {
+        return mPicker;
+    }
+
+    /**
+     * Drags the wheel by <code>distance</code> pixels over the given number of frames and
+     * lifts the finger without flinging, then lets the wheel settle.
+     */
+    GestureTotals drag(int distance, int frames) {
+        startGesture();
+        final float x = WIDTH / 2f;
+        float y = HEIGHT / 2f;
+        final long downTime = SystemClock.uptimeMillis();
+        touch(downTime, MotionEvent.ACTION_DOWN, x, y);
+        for (int i = 0; i < frames; i++) {
+            frame();
+            y += (float) distance / frames;
+            touch(downTime, MotionEvent.ACTION_MOVE, x, y);
+        }
+        // hold still so that the velocity drops below the fling threshold
+        for (int i = 0; i < 10; i++) {
+            frame();
+            touch(downTime, MotionEvent.ACTION_MOVE, x, y);
+        }
+        frame();
+        touch(downTime, MotionEvent.ACTION_UP, x, y);
+        settle();
+        return endGesture();
+    }
+
+    /**
+     * Moves the finger by <code>distance</code> pixels within a few frames and lifts it,
+     * then runs frames until the fling has stopped and the wheel has settled.
+     */
+    GestureTotals fling(int distance) {
+        startGesture();
+        final int moveFrames = 4;
+        final float x = WIDTH / 2f;
+        float y = HEIGHT / 2f;
+        final long downTime = SystemClock.uptimeMillis();
+        touch(downTime, MotionEvent.ACTION_DOWN, x, y);
+        for (int i = 0; i < moveFrames; i++) {
+            frame();
+            y += (float) distance / moveFrames;
+            touch(downTime, MotionEvent.ACTION_MOVE, x, y);
+        }
+        touch(downTime, MotionEvent.ACTION_UP, x, y);
+        for (int i = 0; i < MAX_FLING_FRAMES
+                && mScrollState != NumberPicker.OnScrollListener.SCROLL_STATE_IDLE; i++) {
+            frame();
+        }
+        settle();
+        return endGesture();
+    }
+
+    private void settle() {
+        for (int i = 0; i < SETTLE_FRAMES; i++) {
+            frame();
+        }
+    }
+
+    private void frame() {
+        ShadowLooper.idleMainLooper(FRAME_MILLIS, TimeUnit.MILLISECONDS);
+        mTotals.mFrames++;
+        mPicker.computeScroll();
+        mPicker.draw(mCanvas);
+    }
+
+    private void touch(long downTime, int action, float x, float y) {
+        final MotionEvent event = MotionEvent.obtain(
+                downTime, SystemClock.uptimeMillis(), action, x, y, 0);
+        if (action == MotionEvent.ACTION_DOWN) {
+            mPicker.onInterceptTouchEvent(event);
+        }
+        mPicker.onTouchEvent(event);
+        event.recycle();
+    }
+
+    private void startGesture() {
+        mTotals = new GestureTotals();
+        mTotals.mAllocatedBytes = mThreads != null ? 0 : -1;
+        mTotals.mMaxFlingFrameBytes = mThreads != null ? 0 : -1;
+        mPicker.mLayoutRequests = 0;
+    }
+
+    private GestureTotals endGesture() {
+        mTotals.mLayoutRequests = mPicker.mLayoutRequests;
+        return mTotals;
+    }
+
+    @Override
+    public void onSectionStart(NumberPicker picker, int section) {
+        if (mSectionDepth++ > 0) {
+            return;
+        }
+        if (section == SECTION_DRAW) {
+            mTotals.mDraws++;
+        }
+        mOuterSection = section;
+        if (mThreads != null) {
+            mSectionStartBytes = allocatedBytes();
+        }
+    }
+
+    @Override
+    public void onSectionEnd(NumberPicker picker, int section) {
+        if (--mSectionDepth > 0) {
+            return;
+        }
+        final boolean flingFrame = mOuterSection == SECTION_COMPUTE_SCROLL
+                && mScrollState == NumberPicker.OnScrollListener.SCROLL_STATE_FLING;
+        if (flingFrame) {
+            mTotals.mFlingFrames++;
+        }
+        if (mThreads == null) {
+            return;
+        }
+        final long bytes = Math.max(0, allocatedBytes() - mSectionStartBytes - mReadingBytes);
+        mTotals.mAllocatedBytes += bytes;
+        if (flingFrame) {
+            mTotals.mMaxFlingFrameBytes = Math.max(mTotals.mMaxFlingFrameBytes, bytes);
+        }
+    }
+
+    private long allocatedBytes() {
+        return mThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
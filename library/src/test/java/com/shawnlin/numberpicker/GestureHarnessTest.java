@@ -0,0 +1,76 @@
+package com.shawnlin.numberpicker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class GestureHarnessTest {
+
+    /**
+     * The labels formatted ahead of the wheel at most, see NumberPicker#schedulePrefetchLabels.
+     */
+    private static final int MAX_PREFETCH_COUNT = 32;
+
+    private GestureHarness mHarness;
+
+    @Before
+    public void setUp() {
+        mHarness = new GestureHarness(0, 10000, 5000, false);
+    }
+
+    @Test
+    public void dragChangesTheValueOncePerStep() {
+        final int startValue = mHarness.getPicker().getValue();
+        final GestureHarness.GestureTotals totals =
+                mHarness.drag(-GestureHarness.HEIGHT, 30);
+
+        final int steps = mHarness.getPicker().getValue() - startValue;
+        assertTrue("the drag moved the wheel", steps > 0);
+        assertEquals(steps, totals.mValueChanges);
+        // touch scroll, then idle
+        assertEquals(2, totals.mScrollStateChanges);
+        assertTrue(totals.mDraws >= totals.mFrames);
+    }
+
+    @Test
+    public void dragFormatsEachLabelOnce() {
+        final GestureHarness.GestureTotals totals =
+                mHarness.drag(-GestureHarness.HEIGHT, 30);
+
+        // one format for the label entering the wheel and one for the input text per
+        // step, plus the labels formatted ahead of the wheel
+        final int wheelItemCount = mHarness.getPicker().getWheelItemCount();
+        assertTrue("formats: " + totals.mFormats + ", steps: " + totals.mValueChanges,
+                totals.mFormats
+                        <= 2 * totals.mValueChanges + wheelItemCount + MAX_PREFETCH_COUNT);
+    }
+
+    @Test
+    public void dragRequestsAtMostOneLayoutPerStep() {
+        final GestureHarness.GestureTotals totals =
+                mHarness.drag(-GestureHarness.HEIGHT, 30);
+
+        assertTrue("layouts: " + totals.mLayoutRequests + ", steps: " + totals.mValueChanges,
+                totals.mLayoutRequests <= totals.mValueChanges);
+    }
+
+    @Test
+    public void flingDoesNotRequestLayoutPerStep() {
+        final GestureHarness.GestureTotals totals = mHarness.fling(-GestureHarness.HEIGHT);
+
+        // touch scroll, fling, then idle
+        assertEquals(3, totals.mScrollStateChanges);
+        assertTrue("the fling moved the wheel", totals.mValueChanges > 5);
+        // the input text is only updated once the fling has stopped
+        assertTrue("layouts: " + totals.mLayoutRequests, totals.mLayoutRequests <= 2);
+    }
+}
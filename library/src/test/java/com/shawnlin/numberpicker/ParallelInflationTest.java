@@ -0,0 +1,108 @@
+package com.shawnlin.numberpicker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import android.app.Activity;
+import android.util.AttributeSet;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.LooperMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Constructs pickers on several threads at once, as background inflaters may according to
+ * the class documentation. Only constructors run off the main thread, so that the caches
+ * shared by all pickers are hit concurrently: the parsed styles, the typefaces resolved
+ * from the np_typeface attribute and the two-digit formatter.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+@LooperMode(LooperMode.Mode.PAUSED)
+public class ParallelInflationTest {
+
+    private static final int THREADS = 8;
+    private static final int PICKERS_PER_THREAD = 50;
+    private static final String FAMILY_NAME = "sans-serif-medium";
+
+    @Test
+    public void parallelConstructionSharesConsistentCaches() throws Exception {
+        final Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        final NumberPicker styledReference = new NumberPicker(activity, buildAttributes());
+        final NumberPicker plainReference = new NumberPicker(activity);
+
+        // attribute sets are parsers, so every picker gets its own
+        final List<List<AttributeSet>> attributes = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            final List<AttributeSet> threadAttributes = new ArrayList<>();
+            for (int j = 0; j < PICKERS_PER_THREAD; j++) {
+                threadAttributes.add(j % 2 == 0 ? buildAttributes() : null);
+            }
+            attributes.add(threadAttributes);
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<List<NumberPicker>>> results = new ArrayList<>();
+        try {
+            for (final List<AttributeSet> threadAttributes : attributes) {
+                results.add(executor.submit(new Callable<List<NumberPicker>>() {
+                    @Override
+                    public List<NumberPicker> call() throws Exception {
+                        start.await();
+                        final NumberPicker.Formatter formatter =
+                                NumberPicker.getTwoDigitFormatter();
+                        final List<NumberPicker> pickers = new ArrayList<>();
+                        for (int j = 0; j < threadAttributes.size(); j++) {
+                            final AttributeSet attrs = threadAttributes.get(j);
+                            pickers.add(attrs != null
+                                    ? new NumberPicker(activity, attrs)
+                                    : new NumberPicker(activity));
+                            assertEquals(String.format("%02d", j % 100),
+                                    formatter.format(j % 100));
+                        }
+                        return pickers;
+                    }
+                }));
+            }
+            start.countDown();
+
+            for (Future<List<NumberPicker>> result : results) {
+                final List<NumberPicker> pickers = result.get(30, TimeUnit.SECONDS);
+                for (int j = 0; j < pickers.size(); j++) {
+                    final NumberPicker picker = pickers.get(j);
+                    final NumberPicker reference =
+                            j % 2 == 0 ? styledReference : plainReference;
+                    assertSame(reference.getTypeface(), picker.getTypeface());
+                    assertEquals(reference.getMinValue(), picker.getMinValue());
+                    assertEquals(reference.getMaxValue(), picker.getMaxValue());
+                    assertEquals(reference.getValue(), picker.getValue());
+                    assertEquals(reference.getWheelItemCount(), picker.getWheelItemCount());
+                    assertEquals(reference.getDividerThickness(),
+                            picker.getDividerThickness(), 0f);
+                    assertEquals(reference.getTextSize(), picker.getTextSize(), 0f);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static AttributeSet buildAttributes() {
+        return Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.np_typeface, FAMILY_NAME)
+                .build();
+    }
+}
@@ -0,0 +1,111 @@
+package com.shawnlin.numberpicker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Steps a wrapping {@link WheelModel} across the ends of its range, with the step sizes of
+ * the accelerated scroll.
+ */
+public class WheelModelTest {
+
+    private static final int MIN_VALUE = 0;
+    private static final int MAX_VALUE = 9999;
+    private static final int WHEEL_ITEM_COUNT = 5;
+    private static final int[] STEP_SIZES = {1, 10, 100, 1000};
+
+    /**
+     * The selector index last added to the wheel.
+     */
+    private int mAddedSelectorIndex;
+
+    @Test
+    public void incrementWrapsPastMaxValue() {
+        for (int stepSize : STEP_SIZES) {
+            final WheelModel wheel = newWheel(stepSize, MAX_VALUE);
+            final int[] selectorIndices = wheel.getSelectorIndices();
+            assertEquals(MAX_VALUE, selectorIndices[selectorIndices.length - 1]);
+
+            wheel.incrementSelectorIndices();
+            assertEquals(MIN_VALUE + stepSize - 1, selectorIndices[selectorIndices.length - 1]);
+            assertEquals(MIN_VALUE + stepSize - 1, mAddedSelectorIndex);
+            for (int i = 0; i < 2 * WHEEL_ITEM_COUNT; i++) {
+                wheel.incrementSelectorIndices();
+                assertStepped(stepSize, selectorIndices);
+            }
+        }
+    }
+
+    @Test
+    public void decrementWrapsPastMinValue() {
+        for (int stepSize : STEP_SIZES) {
+            final WheelModel wheel = newWheel(stepSize, MIN_VALUE);
+            final int[] selectorIndices = wheel.getSelectorIndices();
+            assertEquals(MIN_VALUE, selectorIndices[0]);
+
+            wheel.decrementSelectorIndices();
+            assertEquals(MAX_VALUE - stepSize + 1, selectorIndices[0]);
+            assertEquals(MAX_VALUE - stepSize + 1, mAddedSelectorIndex);
+            for (int i = 0; i < 2 * WHEEL_ITEM_COUNT; i++) {
+                wheel.decrementSelectorIndices();
+                assertStepped(stepSize, selectorIndices);
+            }
+        }
+    }
+
+    @Test
+    public void initializeWrapsAroundValue() {
+        for (int stepSize : STEP_SIZES) {
+            final WheelModel wheel = newWheel(stepSize, MAX_VALUE);
+            wheel.setValue(MAX_VALUE);
+            wheel.initializeSelectorIndices();
+            assertEquals(MAX_VALUE, wheel.getMiddleSelectorIndex());
+            assertStepped(stepSize, wheel.getSelectorIndices());
+        }
+    }
+
+    /**
+     * @return A wrapping wheel whose selector indices reach <code>edgeIndex</code> at its
+     * first or last element.
+     */
+    private WheelModel newWheel(int stepSize, int edgeIndex) {
+        final WheelModel wheel = new WheelModel(MIN_VALUE, MAX_VALUE, WHEEL_ITEM_COUNT,
+                new WheelModel.Callback() {
+                    @Override
+                    public void onSelectorIndexAdded(int selectorIndex) {
+                        mAddedSelectorIndex = selectorIndex;
+                    }
+
+                    @Override
+                    public void onSelectorStep(int middleSelectorIndex) {
+                    }
+                });
+        final int middleItemIndex = WHEEL_ITEM_COUNT / 2;
+        final int value = edgeIndex == MAX_VALUE
+                ? MAX_VALUE - middleItemIndex * stepSize
+                : MIN_VALUE + middleItemIndex * stepSize;
+        wheel.setRange(MIN_VALUE, MAX_VALUE, value);
+        wheel.setWrapSelectorWheelPreferred(true);
+        assertTrue(wheel.getWrapSelectorWheel());
+        wheel.setStepSize(stepSize);
+        wheel.initializeSelectorIndices();
+        return wheel;
+    }
+
+    /**
+     * Asserts that the selector indices are in the range and a step apart, modulo the
+     * number of values.
+     */
+    private static void assertStepped(int stepSize, int[] selectorIndices) {
+        final int count = MAX_VALUE - MIN_VALUE + 1;
+        for (int i = 0; i < selectorIndices.length; i++) {
+            assertTrue(selectorIndices[i] >= MIN_VALUE && selectorIndices[i] <= MAX_VALUE);
+            if (i > 0) {
+                assertEquals(stepSize % count,
+                        (selectorIndices[i] - selectorIndices[i - 1] + count) % count);
+            }
+        }
+    }
+}